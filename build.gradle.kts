@@ -5,6 +5,7 @@
 plugins {
     `java-library`
     `maven-publish`
+    alias(libs.plugins.me.champeau.jmh)
 }
 
 repositories {
@@ -25,6 +26,17 @@ repositories {
 dependencies {
     compileOnly(libs.io.papermc.paper.paper.api)
     compileOnly(libs.org.apache.commons.commons.lang3)
+
+    jmh(libs.io.papermc.paper.paper.api)
+    jmh(libs.org.apache.commons.commons.lang3)
+    jmh(libs.org.mockito.mockito.core)
+
+    testImplementation(libs.io.papermc.paper.paper.api)
+    testImplementation(libs.org.apache.commons.commons.lang3)
+    testImplementation(libs.org.mockito.mockito.core)
+    testImplementation(platform(libs.org.junit.junit.bom))
+    testImplementation(libs.org.junit.jupiter.junit.jupiter)
+    testRuntimeOnly(libs.org.junit.platform.junit.platform.launcher)
 }
 
 group = "com.github.XiaMoZhiShi"
@@ -38,6 +50,19 @@ publishing {
     }
 }
 
+jmh {
+    jmhVersion.set(libs.versions.org.openjdk.jmh)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+tasks.test {
+    useJUnitPlatform()
+
+    //测试中的插件由Mockito创建
+    jvmArgs("-XX:+EnableDynamicAgentLoading")
+}
+
 tasks.withType<JavaCompile>() {
     options.encoding = "UTF-8"
 }
@@ -0,0 +1,46 @@
+plugins {
+    `java-library`
+    `maven-publish`
+}
+
+group = "com.github.XiaMoZhiShi"
+version = rootProject.version
+description = "Pluginbase annotation processor"
+java.sourceCompatibility = JavaVersion.VERSION_21
+
+repositories {
+    maven {
+        url = uri("https://repo.maven.apache.org/maven2/")
+    }
+}
+
+dependencies {
+    //生成的注入器引用主项目中的注解和接口
+    testImplementation(project(":"))
+    testImplementation(libs.com.google.testing.compile.compile.testing)
+    testImplementation(platform(libs.org.junit.junit.bom))
+    testImplementation(libs.org.junit.jupiter.junit.jupiter)
+    testRuntimeOnly(libs.org.junit.platform.junit.platform.launcher)
+}
+
+publishing {
+    publications.create<MavenPublication>("maven") {
+        artifactId = "pluginbase-processor"
+        from(components["java"])
+    }
+}
+
+tasks.withType<JavaCompile>() {
+    options.encoding = "UTF-8"
+
+    //不要在编译处理器自身时运行它
+    options.compilerArgs.add("-proc:none")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+tasks.withType<Javadoc>() {
+    options.encoding = "UTF-8"
+}
@@ -0,0 +1,503 @@
+package xiamomc.pluginbase.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 为使用了{@code @Resolved}或{@code @Initializer}的类生成{@code PluginObjectInjector}的实现
+ * <br>
+ * 生成的注入器与目标类位于同一个包中，名为{@code 类名$$Injector}，只负责目标类自己声明的成员。
+ * 由于Java代码无法直接访问其他类的private成员，生成的注入器会在类初始化时按名称和类型找到对应的VarHandle和MethodHandle，
+ * 之后的注入都是直接调用，不需要扫描或反射。
+ * 同时会生成ProGuard规则，保留目标类的名称、注入器和这些成员，以便与混淆和压缩工具一起使用。
+ * <br>
+ * 无法生成的类（例如private的嵌套类或有final依赖字段的类）会在运行时退回到反射注入。
+ */
+public class InjectorProcessor extends AbstractProcessor
+{
+    private static final String RESOLVED = "xiamomc.pluginbase.Annotations.Resolved";
+    private static final String INITIALIZER = "xiamomc.pluginbase.Annotations.Initializer";
+
+    private static final String INJECTOR_INTERFACE = "xiamomc.pluginbase.PluginObjectInjector";
+    private static final String CONTAINER = "xiamomc.pluginbase.Managers.DependencyContainer";
+    private static final String SUFFIX = "$$Injector";
+
+    private static final String KEEP_RULES_FILE = "META-INF/proguard/pluginbase-injectors.pro";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    private final Set<TypeElement> processedTypes = new LinkedHashSet<>();
+
+    private final List<String> keepRules = new ArrayList<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv)
+    {
+        super.init(processingEnv);
+
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        return Set.of(RESOLVED, INITIALIZER);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        if (roundEnv.processingOver())
+        {
+            writeKeepRules();
+            return false;
+        }
+
+        //找到所有声明了这些注解的类
+        var targets = new LinkedHashSet<TypeElement>();
+
+        for (var annotation : annotations)
+        {
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation))
+            {
+                if (element.getEnclosingElement() instanceof TypeElement type)
+                    targets.add(type);
+            }
+        }
+
+        for (var type : targets)
+        {
+            if (processedTypes.add(type))
+                processType(type);
+        }
+
+        return false;
+    }
+
+    //region 收集
+
+    private record FieldInfo(VariableElement element, TypeMirror type, boolean immediate, boolean allowNull)
+    {
+    }
+
+    private void processType(TypeElement type)
+    {
+        var fields = new ArrayList<FieldInfo>();
+        ExecutableElement initializer = null;
+        var valid = true;
+
+        for (var member : type.getEnclosedElements())
+        {
+            if (member.getKind() == ElementKind.FIELD)
+            {
+                var resolved = findAnnotation(member, RESOLVED);
+                if (resolved == null) continue;
+
+                var field = (VariableElement) member;
+
+                if (!checkMember(field, "标记为Resolved的字段")) valid = false;
+
+                var fieldType = types.erasure(field.asType());
+                if (fieldType.getKind().isPrimitive())
+                {
+                    error(field, "标记为Resolved的字段不能是基本类型");
+                    valid = false;
+                }
+
+                fields.add(new FieldInfo(field, fieldType,
+                        booleanValue(resolved, "shouldSolveImmediately"),
+                        booleanValue(resolved, "allowNull")));
+            }
+            else if (member.getKind() == ElementKind.METHOD)
+            {
+                if (findAnnotation(member, INITIALIZER) == null) continue;
+
+                if (initializer != null)
+                {
+                    error(member, type + "中不能拥有多个初始化方法");
+                    valid = false;
+                }
+
+                initializer = (ExecutableElement) member;
+
+                if (!checkMember(initializer, "初始化方法")) valid = false;
+
+                for (var parameter : initializer.getParameters())
+                {
+                    if (parameter.asType().getKind().isPrimitive())
+                    {
+                        error(parameter, "初始化方法的参数不能是基本类型");
+                        valid = false;
+                    }
+                }
+            }
+        }
+
+        if (!valid) return;
+
+        //以下情况无法生成，运行时会使用反射
+        if (!isAccessibleFromPackage(type))
+        {
+            note(type, "无法从包中访问此类，将在运行时使用反射注入");
+            return;
+        }
+
+        for (var field : fields)
+        {
+            if (field.element().getModifiers().contains(Modifier.FINAL))
+            {
+                note(field.element(), "final字段无法通过VarHandle赋值，将在运行时使用反射注入");
+                return;
+            }
+        }
+
+        try
+        {
+            writeInjector(type, fields, initializer);
+        }
+        catch (IOException e)
+        {
+            error(type, "无法生成注入器: " + e.getMessage());
+        }
+    }
+
+    private boolean checkMember(Element member, String description)
+    {
+        var modifiers = member.getModifiers();
+
+        if (!modifiers.contains(Modifier.PRIVATE))
+        {
+            error(member, description + "必须是private");
+            return false;
+        }
+
+        if (modifiers.contains(Modifier.STATIC))
+        {
+            error(member, description + "不能是static");
+            return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isAccessibleFromPackage(TypeElement type)
+    {
+        Element current = type;
+
+        while (current instanceof TypeElement t)
+        {
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+
+            if (t.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+
+            //非静态的内部类无法在其他类中直接引用其类型参数以外的内容，这里同样跳过
+            if (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC))
+                return false;
+
+            current = t.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String name)
+    {
+        for (var mirror : element.getAnnotationMirrors())
+        {
+            var annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+
+            if (annotationType.getQualifiedName().contentEquals(name))
+                return mirror;
+        }
+
+        return null;
+    }
+
+    private boolean booleanValue(AnnotationMirror mirror, String name)
+    {
+        for (var entry : elements.getElementValuesWithDefaults(mirror).entrySet())
+        {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return Boolean.TRUE.equals(entry.getValue().getValue());
+        }
+
+        return false;
+    }
+
+    //endregion 收集
+
+    //region 生成
+
+    private void writeInjector(TypeElement type, List<FieldInfo> fields, ExecutableElement initializer) throws IOException
+    {
+        var packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        var binaryName = elements.getBinaryName(type).toString();
+        var injectorSimpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + SUFFIX;
+
+        //raw类型，避免处理类型参数
+        var targetName = types.erasure(type.asType()).toString();
+
+        var source = new StringBuilder();
+
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+
+        source.append("@javax.annotation.processing.Generated(\"").append(InjectorProcessor.class.getName()).append("\")\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(injectorSimpleName)
+                .append(" implements ").append(INJECTOR_INTERFACE).append("<").append(targetName).append(">\n{\n");
+
+        //region 字段
+
+        for (var field : fields)
+        {
+            source.append("    private static final java.lang.invoke.VarHandle field_")
+                    .append(field.element().getSimpleName()).append(";\n");
+        }
+
+        if (initializer != null)
+            source.append("    private static final java.lang.invoke.MethodHandle initializer;\n");
+
+        source.append("\n    static\n    {\n        try\n        {\n");
+        source.append("            var lookup = java.lang.invoke.MethodHandles.privateLookupIn(")
+                .append(targetName).append(".class, java.lang.invoke.MethodHandles.lookup());\n");
+
+        for (var field : fields)
+        {
+            source.append("            field_").append(field.element().getSimpleName())
+                    .append(" = lookup.findVarHandle(").append(targetName).append(".class, \"")
+                    .append(field.element().getSimpleName()).append("\", ")
+                    .append(field.type()).append(".class);\n");
+        }
+
+        if (initializer != null)
+        {
+            source.append("            initializer = lookup.findVirtual(").append(targetName).append(".class, \"")
+                    .append(initializer.getSimpleName()).append("\", java.lang.invoke.MethodType.methodType(")
+                    .append(types.erasure(initializer.getReturnType())).append(".class");
+
+            for (var parameter : initializer.getParameters())
+                source.append(", ").append(types.erasure(parameter.asType())).append(".class");
+
+            source.append("))\n                    .asType(java.lang.invoke.MethodType.methodType(void.class, ")
+                    .append(targetName).append(".class");
+
+            for (var parameter : initializer.getParameters())
+                source.append(", ").append(types.erasure(parameter.asType())).append(".class");
+
+            source.append("));\n");
+        }
+
+        source.append("        }\n        catch (ReflectiveOperationException e)\n        {\n")
+                .append("            throw new ExceptionInInitializerError(e);\n        }\n    }\n\n");
+
+        //endregion 字段
+
+        //region 方法
+
+        appendFieldMethod(source, "injectImmediate", targetName, fields, true);
+        appendFieldMethod(source, "injectDeferred", targetName, fields, false);
+
+        source.append("    @Override\n    public void initialize(").append(targetName).append(" target, ")
+                .append(CONTAINER).append(" container)\n    {\n");
+
+        if (initializer != null)
+        {
+            var parameters = initializer.getParameters();
+
+            for (int i = 0; i < parameters.size(); i++)
+            {
+                var parameterType = types.erasure(parameters.get(i).asType());
+
+                source.append("        var arg").append(i).append(" = (").append(parameterType).append(") ")
+                        .append(INJECTOR_INTERFACE).append(".resolve(target, container, ")
+                        .append(parameterType).append(".class, false);\n");
+            }
+
+            source.append("\n        try\n        {\n            initializer.invokeExact(target");
+
+            for (int i = 0; i < parameters.size(); i++)
+                source.append(", arg").append(i);
+
+            source.append(");\n        }\n        catch (Throwable t)\n        {\n")
+                    .append("            throw new RuntimeException(t);\n        }\n");
+        }
+
+        source.append("    }\n\n");
+
+        var hasImmediate = fields.stream().anyMatch(FieldInfo::immediate);
+        var hasDeferred = initializer != null || fields.stream().anyMatch(f -> !f.immediate());
+
+        source.append("    @Override\n    public boolean hasImmediateWork()\n    {\n        return ")
+                .append(hasImmediate).append(";\n    }\n\n");
+        source.append("    @Override\n    public boolean hasDeferredWork()\n    {\n        return ")
+                .append(hasDeferred).append(";\n    }\n\n");
+        source.append("    @Override\n    public boolean hasInitializer()\n    {\n        return ")
+                .append(initializer != null).append(";\n    }\n\n");
+
+        //不允许为null的剩余字段和初始化方法的参数
+        var required = new LinkedHashSet<String>();
+
+        for (var field : fields)
+        {
+            if (!field.immediate() && !field.allowNull())
+                required.add(field.type() + ".class");
+        }
+
+        if (initializer != null)
+        {
+            for (var parameter : initializer.getParameters())
+                required.add(types.erasure(parameter.asType()) + ".class");
+        }
+
+        source.append("    @Override\n    public java.util.List<Class<?>> getRequiredDependencies()\n    {\n        return java.util.List.of(")
+                .append(String.join(", ", required)).append(");\n    }\n");
+
+        //endregion 方法
+
+        source.append("}\n");
+
+        var qualifiedInjectorName = packageName.isEmpty() ? injectorSimpleName : packageName + "." + injectorSimpleName;
+
+        try (Writer writer = filer.createSourceFile(qualifiedInjectorName, type).openWriter())
+        {
+            writer.write(source.toString());
+        }
+
+        addKeepRules(binaryName, qualifiedInjectorName, fields, initializer);
+    }
+
+    private void appendFieldMethod(StringBuilder source, String methodName, String targetName,
+                                   List<FieldInfo> fields, boolean immediate)
+    {
+        source.append("    @Override\n    public void ").append(methodName).append("(").append(targetName)
+                .append(" target, ").append(CONTAINER).append(" container)\n    {\n");
+
+        for (var field : fields)
+        {
+            if (field.immediate() != immediate) continue;
+
+            source.append("        field_").append(field.element().getSimpleName()).append(".set(target, (")
+                    .append(field.type()).append(") ").append(INJECTOR_INTERFACE).append(".resolve(target, container, ")
+                    .append(field.type()).append(".class, ").append(field.allowNull()).append("));\n");
+        }
+
+        source.append("    }\n\n");
+    }
+
+    //endregion 生成
+
+    //region 混淆规则
+
+    private void addKeepRules(String targetBinaryName, String injectorName, List<FieldInfo> fields, ExecutableElement initializer)
+    {
+        //运行时按照目标类的名称查找注入器，目标类被重命名后就只能退回到反射注入
+        keepRules.add("-keepnames class " + targetBinaryName);
+        keepRules.add("-keep class " + injectorName + " { <init>(); }");
+
+        var members = new StringBuilder();
+
+        for (var field : fields)
+        {
+            members.append(" private ").append(binaryTypeName(field.type()))
+                    .append(' ').append(field.element().getSimpleName()).append(';');
+        }
+
+        if (initializer != null)
+        {
+            members.append(" private ").append(binaryTypeName(initializer.getReturnType()))
+                    .append(' ').append(initializer.getSimpleName()).append('(');
+
+            var parameters = initializer.getParameters();
+            for (int i = 0; i < parameters.size(); i++)
+            {
+                if (i > 0) members.append(',');
+                members.append(binaryTypeName(parameters.get(i).asType()));
+            }
+
+            members.append(");");
+        }
+
+        keepRules.add("-keepclassmembers class " + targetBinaryName + " {" + members + " }");
+    }
+
+    private String binaryTypeName(TypeMirror type)
+    {
+        var erased = types.erasure(type);
+
+        if (erased.getKind() == TypeKind.DECLARED)
+            return elements.getBinaryName((TypeElement) types.asElement(erased)).toString();
+
+        if (erased.getKind() == TypeKind.ARRAY)
+            return binaryTypeName(((javax.lang.model.type.ArrayType) erased).getComponentType()) + "[]";
+
+        return erased.toString();
+    }
+
+    private void writeKeepRules()
+    {
+        if (keepRules.isEmpty()) return;
+
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", KEEP_RULES_FILE).openWriter())
+        {
+            writer.write("# 由" + InjectorProcessor.class.getName() + "生成，保留依赖注入需要的成员\n");
+
+            for (var rule : keepRules)
+                writer.write(rule + "\n");
+        }
+        catch (IOException e)
+        {
+            messager.printMessage(Diagnostic.Kind.WARNING, "无法生成混淆规则: " + e.getMessage());
+        }
+    }
+
+    //endregion 混淆规则
+
+    private void error(Element element, String message)
+    {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void note(Element element, String message)
+    {
+        messager.printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
@@ -0,0 +1,200 @@
+package xiamomc.pluginbase.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InjectorProcessorTest
+{
+    private static final String KEEP_RULES_FILE = "META-INF/proguard/pluginbase-injectors.pro";
+
+    private static Compilation compile(JavaFileObject... sources)
+    {
+        return javac().withProcessors(new InjectorProcessor()).compile(sources);
+    }
+
+    private static String generatedSource(Compilation compilation, String name) throws IOException
+    {
+        return compilation.generatedSourceFile(name).orElseThrow().getCharContent(true).toString();
+    }
+
+    private static String keepRules(Compilation compilation) throws IOException
+    {
+        return compilation.generatedFile(StandardLocation.CLASS_OUTPUT, KEEP_RULES_FILE)
+                .orElseThrow()
+                .getCharContent(true)
+                .toString();
+    }
+
+    private static final JavaFileObject SERVICE = JavaFileObjects.forSourceLines("test.Service",
+            "package test;",
+            "public class Service {}");
+
+    private static final JavaFileObject OTHER = JavaFileObjects.forSourceLines("test.Other",
+            "package test;",
+            "public class Other {}");
+
+    private static final JavaFileObject HANDLER = JavaFileObjects.forSourceLines("test.Handler",
+            "package test;",
+            "import xiamomc.pluginbase.Annotations.Initializer;",
+            "import xiamomc.pluginbase.Annotations.Resolved;",
+            "public class Handler",
+            "{",
+            "    @Resolved(shouldSolveImmediately = true)",
+            "    private Service immediate;",
+            "    @Resolved",
+            "    private Other deferred;",
+            "    @Resolved(allowNull = true)",
+            "    private Other optional;",
+            "    @Initializer",
+            "    private void load(Service service, Other other) {}",
+            "}");
+
+    //region 生成的注入器
+
+    @Test
+    public void generatesInjectorForAnnotatedClass() throws IOException
+    {
+        var compilation = compile(SERVICE, OTHER, HANDLER);
+
+        assertThat(compilation).succeededWithoutWarnings();
+
+        var source = generatedSource(compilation, "test.Handler$$Injector");
+
+        assertTrue(source.contains("public final class Handler$$Injector implements xiamomc.pluginbase.PluginObjectInjector<test.Handler>"), source);
+        assertTrue(source.contains("lookup.findVarHandle(test.Handler.class, \"immediate\", test.Service.class)"), source);
+        assertTrue(source.contains("lookup.findVirtual(test.Handler.class, \"load\""), source);
+
+        //立即解析的字段和下一刻解析的字段分开处理
+        var immediate = source.substring(source.indexOf("void injectImmediate"), source.indexOf("void injectDeferred"));
+        assertTrue(immediate.contains("field_immediate.set"), immediate);
+        assertFalse(immediate.contains("field_deferred"), immediate);
+
+        assertTrue(source.contains("return java.util.List.of(test.Other.class, test.Service.class);"), source);
+    }
+
+    @Test
+    public void generatesInjectorForStaticNestedClass() throws IOException
+    {
+        var outer = JavaFileObjects.forSourceLines("test.Outer",
+                "package test;",
+                "import xiamomc.pluginbase.Annotations.Resolved;",
+                "public class Outer",
+                "{",
+                "    public static class Inner",
+                "    {",
+                "        @Resolved",
+                "        private Service service;",
+                "    }",
+                "}");
+
+        var compilation = compile(SERVICE, outer);
+
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.Outer$Inner$$Injector");
+
+        assertTrue(keepRules(compilation).contains("-keepnames class test.Outer$Inner\n"));
+    }
+
+    @Test
+    public void skipsClassesThatCannotBeAccessed()
+    {
+        var outer = JavaFileObjects.forSourceLines("test.Outer",
+                "package test;",
+                "import xiamomc.pluginbase.Annotations.Resolved;",
+                "public class Outer",
+                "{",
+                "    private static class Hidden",
+                "    {",
+                "        @Resolved",
+                "        private Service service;",
+                "    }",
+                "}");
+
+        var compilation = compile(SERVICE, outer);
+
+        assertThat(compilation).succeeded();
+        assertThat(compilation).hadNoteContaining("反射");
+        assertTrue(compilation.generatedSourceFile("test.Outer$Hidden$$Injector").isEmpty());
+    }
+
+    //endregion 生成的注入器
+
+    //region 混淆规则
+
+    @Test
+    public void keepRulesKeepTargetNameInjectorAndMembers() throws IOException
+    {
+        var rules = keepRules(compile(SERVICE, OTHER, HANDLER));
+
+        //运行时通过目标类的名称查找注入器
+        assertTrue(rules.contains("-keepnames class test.Handler\n"), rules);
+        assertTrue(rules.contains("-keep class test.Handler$$Injector { <init>(); }\n"), rules);
+        assertTrue(rules.contains("-keepclassmembers class test.Handler {"
+                + " private test.Service immediate;"
+                + " private test.Other deferred;"
+                + " private test.Other optional;"
+                + " private void load(test.Service,test.Other); }\n"), rules);
+    }
+
+    @Test
+    public void noKeepRulesWithoutAnnotatedClasses()
+    {
+        var compilation = compile(SERVICE);
+
+        assertThat(compilation).succeeded();
+        assertTrue(compilation.generatedFile(StandardLocation.CLASS_OUTPUT, KEEP_RULES_FILE).isEmpty());
+    }
+
+    //endregion 混淆规则
+
+    //region 错误
+
+    @Test
+    public void rejectsNonPrivateField()
+    {
+        var source = JavaFileObjects.forSourceLines("test.Broken",
+                "package test;",
+                "import xiamomc.pluginbase.Annotations.Resolved;",
+                "public class Broken",
+                "{",
+                "    @Resolved",
+                "    Service service;",
+                "}");
+
+        var compilation = compile(SERVICE, source);
+
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("private");
+    }
+
+    @Test
+    public void rejectsMultipleInitializers()
+    {
+        var source = JavaFileObjects.forSourceLines("test.Broken",
+                "package test;",
+                "import xiamomc.pluginbase.Annotations.Initializer;",
+                "public class Broken",
+                "{",
+                "    @Initializer",
+                "    private void first() {}",
+                "    @Initializer",
+                "    private void second() {}",
+                "}");
+
+        var compilation = compile(source);
+
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("多个初始化方法");
+    }
+
+    //endregion 错误
+}
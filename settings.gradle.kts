@@ -3,3 +3,5 @@
  */
 
 rootProject.name = "PluginBase"
+
+include("processor")
@@ -0,0 +1,52 @@
+package xiamomc.pluginbase.Benchmarks;
+
+import org.slf4j.LoggerFactory;
+import xiamomc.pluginbase.XiaMoJavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JavaPlugin只能在服务器中创建，基准测试使用mock代替真正的插件
+ */
+final class BenchmarkPlugins
+{
+    private BenchmarkPlugins()
+    {
+    }
+
+    static XiaMoJavaPlugin mockPlugin(String namespace)
+    {
+        var existing = XiaMoJavaPlugin.getInstance(namespace);
+        if (existing != null) return existing;
+
+        var plugin = mock(XiaMoJavaPlugin.class);
+
+        try
+        {
+            File dataFolder = Files.createTempDirectory("pluginbase-jmh-" + namespace).toFile();
+            dataFolder.deleteOnExit();
+
+            when(plugin.getNamespace()).thenReturn(namespace);
+            when(plugin.getDataFolder()).thenReturn(dataFolder);
+            when(plugin.getSLF4JLogger()).thenReturn(LoggerFactory.getLogger(namespace));
+
+            //mock不会执行构造方法，需要手动注册实例
+            var field = XiaMoJavaPlugin.class.getDeclaredField("instances");
+            field.setAccessible(true);
+
+            ((Map<String, XiaMoJavaPlugin>) field.get(null)).put(namespace, plugin);
+        }
+        catch (IOException | ReflectiveOperationException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return plugin;
+    }
+}
@@ -0,0 +1,50 @@
+package xiamomc.pluginbase.Benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import xiamomc.pluginbase.Bindables.Bindable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测量{@link Bindable#set(Object)}在不同绑定数量下的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindableBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int bindings;
+
+    private Bindable<Integer> source;
+
+    //保持强引用，避免绑定被回收
+    private final List<Bindable<Integer>> bound = new ArrayList<>();
+
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        source = new Bindable<>(0);
+
+        for (int i = 0; i < bindings; i++)
+        {
+            var bindable = new Bindable<Integer>();
+            bindable.bindTo(source);
+            bound.add(bindable);
+        }
+    }
+
+    @Benchmark
+    public Integer set()
+    {
+        source.set(++value);
+        return bound.get(bound.size() - 1).get();
+    }
+}
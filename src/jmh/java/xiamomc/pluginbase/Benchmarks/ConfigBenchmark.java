@@ -0,0 +1,61 @@
+package xiamomc.pluginbase.Benchmarks;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.*;
+import xiamomc.pluginbase.Configuration.ConfigNode;
+import xiamomc.pluginbase.Configuration.ConfigOption;
+import xiamomc.pluginbase.Configuration.PluginConfigManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测量{@link PluginConfigManager#get(ConfigOption)}的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigBenchmark
+{
+    @Param({"100", "1000"})
+    public int optionCount;
+
+    private PluginConfigManager configManager;
+
+    private ConfigOption<Integer>[] options;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        var plugin = BenchmarkPlugins.mockPlugin("config_benchmark");
+        var yaml = new YamlConfiguration();
+
+        options = new ConfigOption[optionCount];
+
+        for (int i = 0; i < optionCount; i++)
+        {
+            var node = ConfigNode.create("section" + (i % 10)).append("option" + i);
+
+            options[i] = new ConfigOption<>(node, Integer.class, 0);
+            yaml.set(node.toString(), i);
+        }
+
+        configManager = new PluginConfigManager(plugin)
+        {
+            {
+                this.backendConfig = yaml;
+            }
+        };
+    }
+
+    @Benchmark
+    public Integer get()
+    {
+        index = (index + 1) % optionCount;
+        return configManager.get(options[index]);
+    }
+}
@@ -0,0 +1,70 @@
+package xiamomc.pluginbase.Benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import xiamomc.pluginbase.HeadlessTickDriver;
+import xiamomc.pluginbase.TickScheduler;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测量{@link TickScheduler#tick()}在大量等待中的任务下的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SchedulerBenchmark
+{
+    @Param({"1000", "10000", "100000"})
+    public int pendingTasks;
+
+    private HeadlessTickDriver driver;
+
+    private TickScheduler scheduler;
+
+    private final Runnable noop = () -> {};
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        driver = new HeadlessTickDriver();
+        scheduler = driver.getScheduler();
+
+        //模拟大量长延迟的任务，测量期间都不会到期
+        var random = new SplittableRandom(42);
+        for (int i = 0; i < pendingTasks; i++)
+            scheduler.schedule(noop, 10_000_000 + random.nextInt(1_000_000));
+
+        driver.advance(1);
+    }
+
+    @Benchmark
+    public void idleTick()
+    {
+        scheduler.tick();
+    }
+
+    @Benchmark
+    public void scheduleAndTick()
+    {
+        scheduler.schedule(noop);
+        scheduler.tick();
+    }
+
+    @Benchmark
+    public void postAndTick()
+    {
+        scheduler.post(noop, 1);
+        scheduler.tick();
+    }
+
+    @Benchmark
+    public void scheduleCancelAndTick()
+    {
+        scheduler.schedule(noop, 100).cancel();
+        scheduler.tick();
+    }
+}
@@ -0,0 +1,101 @@
+package xiamomc.pluginbase.Benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import xiamomc.pluginbase.XiaMoJavaPlugin;
+import xiamomc.pluginbase.storage.DirectoryJsonBasedStorage;
+import xiamomc.pluginbase.storage.DirectoryStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测量{@link DirectoryJsonBasedStorage#get(String)}在缓存命中时的开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StorageBenchmark
+{
+    private static final String NAMESPACE = "storage_benchmark";
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    private BenchmarkStorage storage;
+
+    private String[] keys;
+
+    private int index;
+
+    public static class StoredValue
+    {
+        public int value;
+    }
+
+    private static final StoredValue DEFAULT = new StoredValue();
+
+    private static class BenchmarkStorage extends DirectoryJsonBasedStorage<StoredValue, XiaMoJavaPlugin>
+    {
+        protected BenchmarkStorage()
+        {
+            super("benchmark");
+        }
+
+        @Override
+        protected StoredValue getDefault()
+        {
+            return DEFAULT;
+        }
+
+        @Override
+        protected DirectoryStorage<XiaMoJavaPlugin> createDirectoryStorage(String directoryBaseName)
+        {
+            return new DirectoryStorage<>(directoryBaseName)
+            {
+                @Override
+                protected String getPluginNamespace()
+                {
+                    return NAMESPACE;
+                }
+            };
+        }
+
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+
+        private void put(String key, StoredValue value)
+        {
+            instanceMap().put(getPath(key), value);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        BenchmarkPlugins.mockPlugin(NAMESPACE);
+
+        storage = new BenchmarkStorage();
+        keys = new String[keyCount];
+
+        for (int i = 0; i < keyCount; i++)
+        {
+            var value = new StoredValue();
+            value.value = i;
+
+            keys[i] = "player:" + i;
+            storage.put(keys[i], value);
+        }
+    }
+
+    @Benchmark
+    public StoredValue cachedGet()
+    {
+        index = (index + 1) % keyCount;
+        return storage.get(keys[index]);
+    }
+}
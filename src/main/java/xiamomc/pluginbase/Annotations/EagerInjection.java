@@ -0,0 +1,27 @@
+package xiamomc.pluginbase.Annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记某个类的依赖在可用时立即解析，而不是等到类被创建后的下个tick。
+ * <br>
+ * 所有依赖都已注册时，字段会在构造过程中注入；
+ * 否则会在最后一个缺少的依赖被注册时，在注册它的线程中注入。
+ * <br>
+ * 初始化方法不会在构造过程中执行，因为此时子类的字段初始化语句尚未执行。
+ * 它总是在主线程中执行：依赖在构造完成后于主线程中注册时立即执行，其他情况则在下一个tick执行。
+ * 完成的时机可以通过PluginObject#whenReady()获取。
+ *
+ * @apiNote 也可以通过DependencyContainer#setEagerInjection(boolean)对整个依赖表启用此模式。
+ * 依赖表被清空时仍在等待的对象不会再被注入，其whenReady()会以异常完成。
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface EagerInjection
+{
+}
@@ -8,7 +8,7 @@ import java.lang.annotation.Target;
 /**
  * 标记某个字段为类的依赖项。
  * <br>
- * <b>除非ShouldSolveImmediately是true，不然此依赖默认会在类被创建的下一个tick解析。</b>
+ * <b>除非ShouldSolveImmediately是true或类标记了{@link EagerInjection}，不然此依赖默认会在类被创建的下一个tick解析。</b>
  *
  * @apiNote 使用Resolved的类必须直接或者间接扩展PluginObject，标记为Resolved的字段必须为private访问
  */
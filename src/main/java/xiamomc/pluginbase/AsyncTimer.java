@@ -0,0 +1,419 @@
+package xiamomc.pluginbase;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 毫秒精度的异步计时器，不依赖tick的推进
+ * <br>
+ * 由一个计时线程推进哈希时间轮，到期的任务会交给异步Executor执行，计时线程本身不执行任何任务。
+ * 计时线程只在最早的任务到期、有新的任务提交或有任务被取消时醒来，没有等待中的任务时会一直挂起。
+ */
+public class AsyncTimer
+{
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final String threadName;
+
+    private final Executor executor;
+
+    private final Consumer<Throwable> exceptionHandler;
+
+    private final long tickNanos;
+
+    private final Timeout[] heads = new Timeout[WHEEL_SIZE];
+    private final Timeout[] tails = new Timeout[WHEEL_SIZE];
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timeout> canceledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * 已经处理到的计时器刻，只在计时线程中访问
+     */
+    private long processedTick;
+
+    /**
+     * 时间轮中的任务数量，只在计时线程中访问
+     */
+    private int size;
+
+    private volatile Thread worker;
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param threadName 计时线程的名称
+     * @param executor 执行到期任务的Executor
+     * @param exceptionHandler 处理任务抛出的异常
+     */
+    public AsyncTimer(String threadName, Executor executor, Consumer<Throwable> exceptionHandler)
+    {
+        this(threadName, executor, exceptionHandler, Duration.ofMillis(1));
+    }
+
+    public AsyncTimer(String threadName, Executor executor, Consumer<Throwable> exceptionHandler, Duration tickDuration)
+    {
+        if (tickDuration.isNegative() || tickDuration.isZero())
+            throw new IllegalArgumentException("Tick duration must be positive");
+
+        this.threadName = threadName;
+        this.executor = executor;
+        this.exceptionHandler = exceptionHandler;
+        this.tickNanos = tickDuration.toNanos();
+    }
+
+    //region 计划任务
+
+    /**
+     * 在delay之后异步执行一个任务
+     */
+    public Timeout schedule(Runnable runnable, Duration delay)
+    {
+        return submit(new Timeout(this, runnable, System.nanoTime() + Math.max(0, delay.toNanos()), 0));
+    }
+
+    /**
+     * 在initialDelay之后异步执行一个任务，之后每隔period执行一次
+     * <br>
+     * 同一个{@link Timeout}会在每次执行后重新加入计划，调用{@link Timeout#cancel()}即可停止之后的所有执行
+     */
+    public Timeout scheduleRepeating(Runnable runnable, Duration initialDelay, Duration period)
+    {
+        if (period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("Period must be positive");
+
+        return submit(new Timeout(this, runnable, System.nanoTime() + Math.max(0, initialDelay.toNanos()), period.toNanos()));
+    }
+
+    private Timeout submit(Timeout timeout)
+    {
+        if (shutdown)
+        {
+            timeout.canceled = true;
+            return timeout;
+        }
+
+        pendingTimeouts.offer(timeout);
+
+        var thread = worker;
+
+        if (thread == null)
+            thread = startWorker();
+
+        LockSupport.unpark(thread);
+
+        return timeout;
+    }
+
+    private synchronized Thread startWorker()
+    {
+        if (worker != null) return worker;
+
+        var thread = new Thread(this::workerLoop, threadName);
+        thread.setDaemon(true);
+
+        worker = thread;
+        thread.start();
+
+        return thread;
+    }
+
+    void onTimeoutCanceled(Timeout timeout)
+    {
+        canceledTimeouts.offer(timeout);
+
+        //计时线程可能正挂起等待这个任务到期，唤醒它重新计算挂起的时间
+        var thread = worker;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    /**
+     * 停止计时线程并丢弃所有等待中的任务
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+
+        var thread = worker;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    //endregion 计划任务
+
+    //region 计时线程
+
+    private long elapsedTicks()
+    {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void workerLoop()
+    {
+        while (!shutdown)
+        {
+            var target = elapsedTicks();
+
+            transferTimeouts(target);
+
+            if (target - processedTick >= WHEEL_SIZE)
+            {
+                //挂起或落后超过一圈时，每个槽位只需要检查一次
+                for (int bucket = 0; bucket < WHEEL_SIZE; bucket++)
+                    expireTimeouts(bucket, target);
+            }
+            else
+            {
+                for (long tick = processedTick + 1; tick <= target; tick++)
+                    expireTimeouts((int) (tick & WHEEL_MASK), target);
+            }
+
+            processedTick = target;
+
+            if (shutdown) break;
+
+            //新任务和取消都会唤醒计时线程，所以这里可以直接挂起到最早的任务到期
+            if (!pendingTimeouts.isEmpty() || !canceledTimeouts.isEmpty())
+                continue;
+
+            if (size == 0)
+                LockSupport.park(this);
+            else
+                LockSupport.parkNanos(this, startNanos + nextDeadlineTick() * tickNanos - System.nanoTime());
+        }
+
+        pendingTimeouts.clear();
+        canceledTimeouts.clear();
+
+        for (int bucket = 0; bucket < WHEEL_SIZE; bucket++)
+        {
+            heads[bucket] = null;
+            tails[bucket] = null;
+        }
+
+        size = 0;
+    }
+
+    /**
+     * @return 时间轮中最早到期的任务所在的计时器刻，只在时间轮不为空时调用
+     */
+    private long nextDeadlineTick()
+    {
+        var earliest = Long.MAX_VALUE;
+
+        //任务的到期刻都大于processedTick，所以槽位中的任务最早只能在此槽位下一次被经过时到期
+        for (long tick = processedTick + 1; tick <= processedTick + WHEEL_SIZE; tick++)
+        {
+            for (var timeout = heads[(int) (tick & WHEEL_MASK)]; timeout != null; timeout = timeout.next)
+            {
+                if (timeout.deadlineTick == tick) return tick;
+
+                earliest = Math.min(earliest, timeout.deadlineTick);
+            }
+        }
+
+        return earliest;
+    }
+
+    private void transferTimeouts(long target)
+    {
+        Timeout timeout;
+
+        while ((timeout = pendingTimeouts.poll()) != null)
+        {
+            if (timeout.canceled) continue;
+
+            add(timeout, target);
+        }
+
+        while ((timeout = canceledTimeouts.poll()) != null)
+            remove(timeout);
+    }
+
+    private void add(Timeout timeout, long target)
+    {
+        //向上取整，保证不会提前执行
+        var deadlineTick = Math.ceilDiv(timeout.deadlineNanos - startNanos, tickNanos);
+
+        if (deadlineTick <= target)
+        {
+            dispatch(timeout, target);
+            return;
+        }
+
+        timeout.deadlineTick = deadlineTick;
+
+        var bucket = (int) (deadlineTick & WHEEL_MASK);
+        var tail = tails[bucket];
+
+        if (tail == null)
+            heads[bucket] = timeout;
+        else
+            tail.next = timeout;
+
+        timeout.prev = tail;
+        timeout.bucket = bucket;
+        tails[bucket] = timeout;
+
+        size++;
+    }
+
+    private void remove(Timeout timeout)
+    {
+        var bucket = timeout.bucket;
+        if (bucket < 0) return;
+
+        var prev = timeout.prev;
+        var next = timeout.next;
+
+        if (prev == null)
+            heads[bucket] = next;
+        else
+            prev.next = next;
+
+        if (next == null)
+            tails[bucket] = prev;
+        else
+            next.prev = prev;
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+
+        size--;
+    }
+
+    private void expireTimeouts(int bucket, long target)
+    {
+        var timeout = heads[bucket];
+
+        while (timeout != null)
+        {
+            var next = timeout.next;
+
+            if (timeout.canceled)
+            {
+                remove(timeout);
+            }
+            else if (timeout.deadlineTick <= target)
+            {
+                remove(timeout);
+                dispatch(timeout, target);
+            }
+
+            timeout = next;
+        }
+    }
+
+    private void dispatch(Timeout timeout, long target)
+    {
+        try
+        {
+            executor.execute(timeout.runner);
+        }
+        catch (RejectedExecutionException e)
+        {
+            exceptionHandler.accept(e);
+            return;
+        }
+
+        //重复任务原地重新加入时间轮，落后时跳过错过的周期
+        if (timeout.periodNanos > 0 && !timeout.canceled)
+        {
+            var period = timeout.periodNanos;
+            timeout.deadlineNanos += period;
+
+            var now = System.nanoTime();
+            if (timeout.deadlineNanos <= now)
+                timeout.deadlineNanos += ((now - timeout.deadlineNanos) / period + 1) * period;
+
+            add(timeout, target);
+        }
+    }
+
+    //endregion 计时线程
+
+    /**
+     * 由{@link AsyncTimer}计划的任务
+     */
+    public static class Timeout
+    {
+        private final AsyncTimer timer;
+
+        private final Runnable function;
+
+        private final Runnable runner;
+
+        private final long periodNanos;
+
+        private long deadlineNanos;
+
+        private long deadlineTick;
+
+        private Timeout prev, next;
+
+        private int bucket = -1;
+
+        private volatile boolean canceled;
+
+        private Timeout(AsyncTimer timer, Runnable function, long deadlineNanos, long periodNanos)
+        {
+            this.timer = timer;
+            this.function = function;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+            this.runner = this::run;
+        }
+
+        private void run()
+        {
+            if (canceled) return;
+
+            try
+            {
+                function.run();
+            }
+            catch (Throwable t)
+            {
+                timer.exceptionHandler.accept(t);
+            }
+        }
+
+        /**
+         * 取消此任务，可以在任意线程调用
+         */
+        public void cancel()
+        {
+            if (canceled) return;
+
+            canceled = true;
+            timer.onTimeoutCanceled(this);
+        }
+
+        public boolean isCanceled()
+        {
+            return canceled;
+        }
+
+        public boolean isRepeating()
+        {
+            return periodNanos > 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Timeout[" + function + (isRepeating() ? ", period=" + periodNanos + "ns" : "") + "]";
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package xiamomc.pluginbase;
+
+/**
+ * 任务因卡顿而错过计划执行的刻时，{@link TickScheduler}应该如何补上
+ */
+public enum CatchUpPolicy
+{
+    /**
+     * 所有过期的任务都在当前刻立即执行，重复任务会在当前刻补上每一次错过的执行
+     */
+    RUN_ALL,
+
+    /**
+     * 每刻最多执行{@code getCatchUpTasksPerTick()}个过期的任务，其余的按顺序留到之后的刻，
+     * 重复任务补上的每一次执行也计入其中
+     */
+    SPREAD,
+
+    /**
+     * 过期的任务只执行一次，重复任务跳过所有错过的执行，并按照原来的节奏继续
+     */
+    SKIP_MISSED
+}
@@ -0,0 +1,87 @@
+package xiamomc.pluginbase;
+
+/**
+ * 按所有者隔离计划任务异常的熔断器
+ * <br>
+ * 在一个滑动窗口内记录最近的若干次异常，达到上限后熔断一段时间，期间该所有者的任务都不会执行。
+ * 判断只在记录异常时进行，不需要额外的计划任务来清理计数。
+ */
+public class CircuitBreaker
+{
+    private final String ownerName;
+
+    private final long[] failureTicks;
+
+    private final int windowTicks;
+
+    private final int quarantineTicks;
+
+    private int cursor;
+
+    private int failures;
+
+    private volatile long openUntilTick = Long.MIN_VALUE;
+
+    /**
+     * @param ownerName 所有者的名称，用于输出
+     * @param failureLimit 窗口内最多能接受多少异常
+     * @param windowTicks 滑动窗口的长度
+     * @param quarantineTicks 熔断后隔离多久，为0时一直隔离到{@link CircuitBreaker#reset()}
+     */
+    public CircuitBreaker(String ownerName, int failureLimit, int windowTicks, int quarantineTicks)
+    {
+        this.ownerName = ownerName;
+        this.failureTicks = new long[Math.max(1, failureLimit)];
+        this.windowTicks = Math.max(1, windowTicks);
+        this.quarantineTicks = quarantineTicks;
+    }
+
+    public String getOwnerName()
+    {
+        return ownerName;
+    }
+
+    /**
+     * @return 在这一刻是否处于熔断状态
+     */
+    public boolean isOpen(long tick)
+    {
+        return tick < openUntilTick;
+    }
+
+    /**
+     * 记录一次异常
+     *
+     * @return 是否因为这次异常而熔断
+     */
+    public synchronized boolean recordFailure(long tick)
+    {
+        if (isOpen(tick)) return false;
+
+        failureTicks[cursor] = tick;
+        cursor = (cursor + 1) % failureTicks.length;
+
+        if (failures < failureTicks.length) failures++;
+
+        //cursor现在指向窗口内最早的一次异常
+        if (failures < failureTicks.length || tick - failureTicks[cursor] >= windowTicks)
+            return false;
+
+        openUntilTick = quarantineTicks > 0 ? tick + quarantineTicks : Long.MAX_VALUE;
+        failures = 0;
+
+        return true;
+    }
+
+    public synchronized void reset()
+    {
+        failures = 0;
+        openUntilTick = Long.MIN_VALUE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CircuitBreaker[" + ownerName + "]";
+    }
+}
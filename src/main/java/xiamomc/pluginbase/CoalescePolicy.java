@@ -0,0 +1,17 @@
+package xiamomc.pluginbase;
+
+/**
+ * 同一个键已经有等待中的任务时，{@link ISchedulablePlugin#scheduleCoalesced}应该如何处理
+ */
+public enum CoalescePolicy
+{
+    /**
+     * 保留原来的执行时间，到期时执行最后一次提交的任务
+     */
+    KEEP_DEADLINE,
+
+    /**
+     * 取消原来的计划，从现在开始重新计算延迟（防抖）
+     */
+    RESET_DEADLINE
+}
@@ -0,0 +1,138 @@
+package xiamomc.pluginbase.Command;
+
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import xiamomc.pluginbase.Messages.FormattableMessage;
+import xiamomc.pluginbase.Messages.SlowTaskStrings;
+import xiamomc.pluginbase.SlowTaskRecord;
+import xiamomc.pluginbase.XiaMoJavaPlugin;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 输出或清空插件中执行缓慢的计划任务记录
+ * <br>
+ * 用法：{@code <命令名>}输出所有记录，{@code <命令名> clear}清空记录
+ * <br>
+ * 输出的消息来自{@link SlowTaskStrings}
+ */
+public class SlowTasksSubCommand implements ISubCommand
+{
+    private final XiaMoJavaPlugin plugin;
+
+    private final String permission;
+
+    private final int maxFrames;
+
+    /**
+     * @param plugin 要查看的插件
+     * @param permission 需要的权限，为null则没有要求
+     */
+    public SlowTasksSubCommand(XiaMoJavaPlugin plugin, @Nullable String permission)
+    {
+        this(plugin, permission, 16);
+    }
+
+    /**
+     * @param maxFrames 每条记录最多输出多少帧调用栈
+     */
+    public SlowTasksSubCommand(XiaMoJavaPlugin plugin, @Nullable String permission, int maxFrames)
+    {
+        this.plugin = plugin;
+        this.permission = permission;
+        this.maxFrames = maxFrames;
+    }
+
+    @Override
+    public @NotNull String getCommandName()
+    {
+        return "slowtasks";
+    }
+
+    @Override
+    public @Nullable String getPermissionRequirement()
+    {
+        return permission;
+    }
+
+    @Override
+    public FormattableMessage getHelpMessage()
+    {
+        return SlowTaskStrings.help();
+    }
+
+    @Override
+    public @Nullable List<String> onTabComplete(List<String> args, CommandSender source)
+    {
+        return args.size() <= 1 ? List.of("clear") : null;
+    }
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull String[] args)
+    {
+        var detector = plugin.getSlowTaskDetector();
+
+        if (detector == null)
+        {
+            sender.sendMessage(SlowTaskStrings.detectionDisabled().createComponent());
+            return true;
+        }
+
+        if (args.length >= 1 && args[0].equalsIgnoreCase("clear"))
+        {
+            detector.clear();
+            sender.sendMessage(SlowTaskStrings.recordsCleared().createComponent());
+            return true;
+        }
+
+        var records = detector.getRecords();
+
+        sender.sendMessage(SlowTaskStrings.header()
+                .resolve("count", records.size())
+                .resolve("threshold", formatMillis(detector.getThresholdNanos()))
+                .createComponent());
+
+        for (var record : records)
+            sendRecord(sender, record);
+
+        return true;
+    }
+
+    private void sendRecord(CommandSender sender, SlowTaskRecord record)
+    {
+        var message = SlowTaskStrings.record()
+                .resolve("time", Instant.ofEpochMilli(record.getTimestampMillis()))
+                .resolve("tick", record.getTick())
+                .resolve("kind", record.isAsync() ? SlowTaskStrings.asyncTaskKind() : SlowTaskStrings.taskKind())
+                .resolve("task", record.getTaskName())
+                .resolve("duration", formatMillis(record.getDurationNanos()))
+                .resolve("thread", record.getThreadName());
+
+        var owner = record.getOwnerName();
+
+        if (owner == null)
+            message.resolve("owner", "");
+        else
+            message.resolve("owner", SlowTaskStrings.ownerSuffix().resolve("owner", owner));
+
+        sender.sendMessage(message.createComponent());
+
+        var stack = record.getSampledStack();
+        if (stack == null) return;
+
+        var frames = Math.min(maxFrames, stack.length);
+
+        for (int i = 0; i < frames; i++)
+            sender.sendMessage("    at " + stack[i]);
+
+        if (frames < stack.length)
+            sender.sendMessage(SlowTaskStrings.moreFrames().resolve("count", stack.length - frames).createComponent());
+    }
+
+    private static String formatMillis(long nanos)
+    {
+        return "%.2f".formatted(nanos / 1_000_000D);
+    }
+}
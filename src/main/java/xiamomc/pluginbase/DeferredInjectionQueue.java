@@ -0,0 +1,107 @@
+package xiamomc.pluginbase;
+
+import java.util.ArrayList;
+
+/**
+ * 等待在下一刻解析剩余依赖的{@link PluginObject}
+ * <br>
+ * 同一个插件的所有对象共用一个队列，调度器在每刻执行任何任务之前清空一次，并按照创建顺序逐个处理。
+ * 单个对象注入失败只会单独报告，不会影响队列中的其他对象。
+ */
+final class DeferredInjectionQueue
+{
+    private final XiaMoJavaPlugin plugin;
+
+    /**
+     * 等待下一次清空的对象，只在持有锁时访问
+     */
+    private ArrayList<PluginObject<?>> pending = new ArrayList<>();
+
+    /**
+     * 正在清空的对象，只在tick线程中访问，和pending交替使用
+     */
+    private ArrayList<PluginObject<?>> draining = new ArrayList<>();
+
+    /**
+     * pending是否不为空，让没有对象等待时的清空不需要加锁
+     */
+    private volatile boolean hasPending;
+
+    DeferredInjectionQueue(XiaMoJavaPlugin plugin)
+    {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 将对象加入队列，在下一刻开始时处理
+     */
+    void add(PluginObject<?> object)
+    {
+        //调度器不再接受任务时（插件已停用），不会再有下一刻来处理这个对象
+        if (!plugin.acceptSchedules()) return;
+
+        synchronized (this)
+        {
+            pending.add(object);
+            hasPending = true;
+        }
+    }
+
+    /**
+     * 丢弃所有等待中的对象
+     */
+    synchronized void clear()
+    {
+        pending.clear();
+        hasPending = false;
+    }
+
+    /**
+     * @return 等待中的对象数量
+     */
+    synchronized int size()
+    {
+        return pending.size();
+    }
+
+    /**
+     * 处理所有等待中的对象，只在tick线程中调用
+     */
+    void drain()
+    {
+        if (!hasPending) return;
+
+        ArrayList<PluginObject<?>> batch;
+
+        synchronized (this)
+        {
+            batch = pending;
+            pending = draining;
+            draining = batch;
+
+            //处理期间新创建的对象会在下一刻处理
+            hasPending = false;
+        }
+
+        try
+        {
+            for (int i = 0; i < batch.size(); i++)
+            {
+                var object = batch.get(i);
+
+                try
+                {
+                    object.resolveRemainingDependencies();
+                }
+                catch (Throwable t)
+                {
+                    plugin.onDeferredInjectionFailed(object, t);
+                }
+            }
+        }
+        finally
+        {
+            batch.clear();
+        }
+    }
+}
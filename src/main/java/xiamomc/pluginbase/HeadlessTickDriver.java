@@ -0,0 +1,62 @@
+package xiamomc.pluginbase;
+
+/**
+ * 在没有服务器的环境中驱动{@link TickScheduler}
+ * <br>
+ * 适合在普通的JVM中对调度器进行基准测试或压力测试，每次调用{@link HeadlessTickDriver#advance(int)}都会在当前线程中执行指定次数的tick
+ */
+public class HeadlessTickDriver
+{
+    private final TickScheduler scheduler;
+
+    /**
+     * 创建一个在当前线程中直接执行异步任务的驱动器，让结果可以重复
+     */
+    public HeadlessTickDriver()
+    {
+        this(new TickScheduler(Runnable::run));
+    }
+
+    public HeadlessTickDriver(TickScheduler scheduler)
+    {
+        this.scheduler = scheduler;
+    }
+
+    public TickScheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+    /**
+     * 执行指定次数的tick
+     */
+    public void advance(int ticks)
+    {
+        for (int i = 0; i < ticks; i++)
+            scheduler.tick();
+    }
+
+    /**
+     * 持续执行tick，直到没有等待中的任务或达到上限
+     *
+     * @param maxTicks 最多执行多少次tick
+     * @return 实际执行了多少次tick
+     */
+    public long advanceUntilIdle(long maxTicks)
+    {
+        long ticks = 0;
+
+        while (ticks < maxTicks && !scheduler.isIdle())
+        {
+            scheduler.tick();
+            ticks++;
+        }
+
+        return ticks;
+    }
+
+    public long getCurrentTick()
+    {
+        return scheduler.getCurrentTick();
+    }
+}
@@ -1,6 +1,10 @@
 package xiamomc.pluginbase;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public interface ISchedulablePlugin
 {
@@ -19,6 +23,31 @@ public interface ISchedulablePlugin
 
     public ScheduleInfo schedule(Runnable function, int delay, boolean async);
 
+    /**
+     * 计划一个不需要取消的一次性任务，在主线程中调用时不会产生额外的对象
+     *
+     * @return 任务是否被接受
+     */
+    public boolean post(Runnable function, int delay);
+
+    public boolean post(Runnable function, int delay, boolean async);
+
+    public ScheduleInfo schedule(Runnable function, int delay, TaskPriority priority);
+
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskPriority priority);
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period);
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async);
+
+    public <T> IncrementalTask<T> scheduleForEach(Iterable<T> iterable, Consumer<T> consumer, int itemsPerTick);
+
+    public <T> IncrementalTask<T> scheduleForEachTimed(Iterable<T> iterable, Consumer<T> consumer, long nanosPerTick);
+
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay);
+
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay, CoalescePolicy policy);
+
     public abstract long getCurrentTick();
 
     public abstract boolean acceptSchedules();
@@ -26,4 +55,45 @@ public interface ISchedulablePlugin
     abstract void startMainLoop(Runnable mainLoopRunnable);
 
     abstract void runAsync(Runnable runnable);
+
+    public AsyncTimer.Timeout runAsyncLater(Runnable runnable, Duration delay);
+
+    public AsyncTimer.Timeout runAsyncRepeating(Runnable runnable, Duration initialDelay, Duration period);
+
+    public void runAsyncOrdered(Object key, Runnable runnable);
+
+    //region CompletableFuture
+
+    /**
+     * 获取一个会在下一刻的tick中执行任务的Executor
+     * <br>
+     * 可以传给{@link CompletableFuture#thenApplyAsync(java.util.function.Function, Executor)}等方法，让后续操作回到主线程执行
+     */
+    public Executor getMainThreadExecutor();
+
+    /**
+     * 异步获取一个值
+     */
+    public default <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier)
+    {
+        return CompletableFuture.supplyAsync(supplier, this::runAsync);
+    }
+
+    /**
+     * 在下一刻的tick中获取一个值
+     */
+    public default <T> CompletableFuture<T> supplyNextTick(Supplier<T> supplier)
+    {
+        return CompletableFuture.supplyAsync(supplier, getMainThreadExecutor());
+    }
+
+    /**
+     * 在下一刻的tick中执行一个任务
+     */
+    public default CompletableFuture<Void> runNextTick(Runnable runnable)
+    {
+        return CompletableFuture.runAsync(runnable, getMainThreadExecutor());
+    }
+
+    //endregion CompletableFuture
 }
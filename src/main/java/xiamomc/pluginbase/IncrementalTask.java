@@ -0,0 +1,142 @@
+package xiamomc.pluginbase;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 分散到多个tick中逐个处理集合元素的任务
+ * <br>
+ * 每刻从上次停下的位置继续，直到处理完所有元素或被取消
+ *
+ * @apiNote 迭代会跨越多个tick进行，如果集合可能在此期间被修改，请传入它的副本
+ */
+public class IncrementalTask<T>
+{
+    private final Iterator<T> iterator;
+
+    private final Consumer<T> consumer;
+
+    private final int itemsPerTick;
+
+    private final long nanosPerTick;
+
+    private final int totalCount;
+
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+    private volatile int processedCount;
+
+    private ScheduleInfo scheduleInfo;
+
+    IncrementalTask(Iterable<T> iterable, Consumer<T> consumer, int itemsPerTick, long nanosPerTick)
+    {
+        this.iterator = iterable.iterator();
+        this.consumer = consumer;
+        this.itemsPerTick = itemsPerTick;
+        this.nanosPerTick = nanosPerTick;
+        this.totalCount = iterable instanceof Collection<?> collection ? collection.size() : -1;
+    }
+
+    void start(TickScheduler scheduler)
+    {
+        this.scheduleInfo = scheduler.scheduleRepeating(this::step, 1, 1);
+
+        //任务被调度器丢弃时（例如插件停用），剩余的元素不会再被处理
+        scheduleInfo.onCanceled = () -> completion.cancel(false);
+
+        if (scheduleInfo.isCanceled())
+            completion.cancel(false);
+    }
+
+    private void step()
+    {
+        if (completion.isDone())
+        {
+            scheduleInfo.cancel();
+            return;
+        }
+
+        var startedAt = nanosPerTick > 0 ? System.nanoTime() : 0;
+        int processedThisTick = 0;
+
+        try
+        {
+            while (iterator.hasNext())
+            {
+                //至少处理一个元素，避免单个元素超出预算时永远无法完成
+                //在取下一个元素前检查，这样处理完最后一个元素的这一刻就能完成
+                if (processedThisTick > 0)
+                {
+                    if (itemsPerTick > 0 && processedThisTick >= itemsPerTick) return;
+                    if (nanosPerTick > 0 && System.nanoTime() - startedAt >= nanosPerTick) return;
+                }
+
+                consumer.accept(iterator.next());
+
+                processedCount++;
+                processedThisTick++;
+            }
+        }
+        catch (Throwable t)
+        {
+            completion.completeExceptionally(t);
+            scheduleInfo.cancel();
+
+            throw t;
+        }
+
+        completion.complete(processedCount);
+        scheduleInfo.cancel();
+    }
+
+    /**
+     * 停止处理剩余的元素
+     */
+    public void cancel()
+    {
+        if (scheduleInfo != null)
+            scheduleInfo.cancel();
+
+        completion.cancel(false);
+    }
+
+    public boolean isDone()
+    {
+        return completion.isDone();
+    }
+
+    /**
+     * @return 处理完所有元素后完成的Future，结果为处理过的元素数量；
+     * 被取消或被调度器丢弃（例如插件停用）时会以{@link java.util.concurrent.CancellationException}完成
+     */
+    public CompletableFuture<Integer> getCompletion()
+    {
+        return completion;
+    }
+
+    public int getProcessedCount()
+    {
+        return processedCount;
+    }
+
+    /**
+     * @return 元素总数，如果传入的不是{@link Collection}则为-1
+     */
+    public int getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * @return 0到1之间的进度，元素总数未知时为-1
+     */
+    public double getProgress()
+    {
+        if (totalCount < 0) return -1;
+        if (totalCount == 0) return 1;
+
+        return Math.min(1, (double) processedCount / totalCount);
+    }
+}
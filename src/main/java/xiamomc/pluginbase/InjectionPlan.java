@@ -0,0 +1,184 @@
+package xiamomc.pluginbase;
+
+import org.apache.commons.lang3.ClassUtils;
+import xiamomc.pluginbase.Annotations.EagerInjection;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 某个{@link PluginObject}子类需要执行的所有注入器，父类的注入器在前
+ * <br>
+ * 每个类只会查找一次，之后创建的同类对象都直接使用缓存的结果。
+ * 对于每个类，优先使用编译时生成的{@link PluginObjectInjector}，没有时再使用{@link ReflectionInjector}。
+ */
+final class InjectionPlan
+{
+    private static final ClassValue<PluginObjectInjector<Object>> injectors = new ClassValue<>()
+    {
+        @Override
+        protected PluginObjectInjector<Object> computeValue(Class<?> type)
+        {
+            var generated = findGeneratedInjector(type);
+            return generated != null ? generated : new ReflectionInjector(type);
+        }
+    };
+
+    private static final ClassValue<InjectionPlan> plans = new ClassValue<>()
+    {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type)
+        {
+            return new InjectionPlan(type);
+        }
+    };
+
+    /**
+     * 获取某个类的注入计划
+     *
+     * @throws RuntimeException 此类的声明不合法，例如某个类中有多个初始化方法
+     */
+    public static InjectionPlan of(Class<?> type)
+    {
+        return plans.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PluginObjectInjector<Object> findGeneratedInjector(Class<?> type)
+    {
+        Class<?> injectorClass;
+
+        try
+        {
+            injectorClass = Class.forName(type.getName() + PluginObjectInjector.GENERATED_SUFFIX, true, type.getClassLoader());
+        }
+        catch (ClassNotFoundException | LinkageError e)
+        {
+            return null;
+        }
+
+        if (!PluginObjectInjector.class.isAssignableFrom(injectorClass))
+            return null;
+
+        try
+        {
+            return (PluginObjectInjector<Object>) injectorClass.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new RuntimeException("无法创建" + type + "的注入器: " + e.getMessage(), e);
+        }
+    }
+
+    private final List<PluginObjectInjector<Object>> immediate;
+
+    private final List<PluginObjectInjector<Object>> deferred;
+
+    private final List<Class<?>> requiredDependencies;
+
+    private final boolean eager;
+
+    private final boolean hasInitializer;
+
+    private InjectionPlan(Class<?> type)
+    {
+        var superclasses = ClassUtils.getAllSuperclasses(type);
+        Collections.reverse(superclasses);
+
+        var classes = new ArrayList<Class<?>>(superclasses);
+        classes.add(type);
+
+        var immediateList = new ArrayList<PluginObjectInjector<Object>>();
+        var deferredList = new ArrayList<PluginObjectInjector<Object>>();
+
+        for (var c : classes)
+        {
+            var injector = injectors.get(c);
+
+            if (injector.hasImmediateWork()) immediateList.add(injector);
+            if (injector.hasDeferredWork()) deferredList.add(injector);
+        }
+
+        this.immediate = List.copyOf(immediateList);
+        this.deferred = List.copyOf(deferredList);
+
+        var required = new LinkedHashSet<Class<?>>();
+        for (var injector : deferredList)
+            required.addAll(injector.getRequiredDependencies());
+
+        this.requiredDependencies = List.copyOf(required);
+        this.eager = type.isAnnotationPresent(EagerInjection.class);
+        this.hasInitializer = deferredList.stream().anyMatch(PluginObjectInjector::hasInitializer);
+    }
+
+    /**
+     * @return 是否有需要在下一刻处理的字段或初始化方法
+     */
+    public boolean hasDeferredWork()
+    {
+        return !deferred.isEmpty();
+    }
+
+    /**
+     * @return 此类是否标记了{@link EagerInjection}
+     */
+    public boolean isEager()
+    {
+        return eager;
+    }
+
+    /**
+     * @return 执行{@link InjectionPlan#injectDeferred(Object, DependencyContainer)}前必须已经注册的依赖类型
+     */
+    public List<Class<?>> getRequiredDependencies()
+    {
+        return requiredDependencies;
+    }
+
+    /**
+     * 注入需要在创建时立即解析的字段
+     */
+    public void injectImmediate(Object target, DependencyContainer container)
+    {
+        for (var injector : immediate)
+            injector.injectImmediate(target, container);
+    }
+
+    /**
+     * @return 此类或其父类中是否有初始化方法
+     */
+    public boolean hasInitializer()
+    {
+        return hasInitializer;
+    }
+
+    /**
+     * 注入剩余的字段，然后按照从父类到子类的顺序调用初始化方法
+     */
+    public void injectDeferred(Object target, DependencyContainer container)
+    {
+        this.injectDeferredFields(target, container);
+        this.initialize(target, container);
+    }
+
+    /**
+     * 只注入剩余的字段
+     */
+    public void injectDeferredFields(Object target, DependencyContainer container)
+    {
+        for (var injector : deferred)
+            injector.injectDeferred(target, container);
+    }
+
+    /**
+     * 按照从父类到子类的顺序调用初始化方法
+     */
+    public void initialize(Object target, DependencyContainer container)
+    {
+        for (var injector : deferred)
+            injector.initialize(target, container);
+    }
+}
@@ -0,0 +1,128 @@
+package xiamomc.pluginbase;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以2的幂次划分区间的耗时直方图，可以被多个线程同时写入
+ * <br>
+ * 第i个区间记录耗时在[2^(i-1), 2^i)纳秒之间的样本，第0个区间记录耗时为0的样本
+ */
+public class LatencyHistogram
+{
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos)
+    {
+        if (nanos < 0) nanos = 0;
+
+        buckets.incrementAndGet(bucketOf(nanos));
+        totalNanos.add(nanos);
+
+        if (nanos > maxNanos.get())
+            maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static int bucketOf(long nanos)
+    {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * @return 第index个区间的上界（不包含）
+     */
+    public static long bucketUpperBound(int index)
+    {
+        return index >= 63 ? Long.MAX_VALUE : 1L << index;
+    }
+
+    public long getCount()
+    {
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += buckets.get(i);
+
+        return count;
+    }
+
+    public long getTotalNanos()
+    {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos()
+    {
+        var count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    /**
+     * 获取某个百分位数所在区间的上界
+     *
+     * @param percentile 0到1之间的百分位数
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        var counts = getBucketCounts();
+
+        long count = 0;
+        for (var c : counts) count += c;
+
+        if (count == 0) return 0;
+
+        var target = (long) Math.ceil(count * Math.min(1, Math.max(0, percentile)));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts[i];
+
+            if (seen >= target && counts[i] > 0)
+                return Math.min(bucketUpperBound(i), getMaxNanos());
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * @return 每个区间的样本数量，可用于导出
+     */
+    public long[] getBucketCounts()
+    {
+        var counts = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts[i] = buckets.get(i);
+
+        return counts;
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets.set(i, 0);
+
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "count=%s, mean=%.0fns, p99<=%sns, max=%sns"
+                .formatted(getCount(), getMeanNanos(), getPercentileNanos(0.99), getMaxNanos());
+    }
+}
@@ -5,6 +5,7 @@ import xiamomc.pluginbase.Exceptions.DependencyAlreadyRegisteredException;
 import xiamomc.pluginbase.Exceptions.NullDependencyException;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class DependencyContainer
@@ -15,6 +16,30 @@ public class DependencyContainer
     //注册表
     private final Map<Class<?>, Object> cacheMap = new ConcurrentHashMap<>();
 
+    //等待某个类型被注册的Future
+    private final Map<Class<?>, CompletableFuture<Object>> waiters = new ConcurrentHashMap<>();
+
+    private volatile boolean eagerInjection;
+
+    /**
+     * @return 使用此依赖表的PluginObject是否在依赖可用时立即解析
+     * @see xiamomc.pluginbase.Annotations.EagerInjection
+     */
+    public boolean isEagerInjection()
+    {
+        return eagerInjection;
+    }
+
+    /**
+     * 设置使用此依赖表的PluginObject是否在依赖可用时立即解析，只影响之后创建的对象
+     *
+     * @see xiamomc.pluginbase.Annotations.EagerInjection
+     */
+    public void setEagerInjection(boolean eagerInjection)
+    {
+        this.eagerInjection = eagerInjection;
+    }
+
     /**
      * 注册一个对象到依赖表中
      *
@@ -45,6 +70,39 @@ public class DependencyContainer
             throw new DependencyAlreadyRegisteredException("Already registered an instance of type %s".formatted(classType));
 
         cacheMap.put(classType, obj);
+
+        //通知等待此类型的对象
+        var waiter = waiters.remove(classType);
+        if (waiter != null)
+            waiter.complete(obj);
+    }
+
+    /**
+     * 获取一个在classType被注册时完成的Future
+     * <br>
+     * 已经注册时返回已完成的Future，否则会在注册它的线程中完成
+     *
+     * @param classType 目标Class类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> whenRegistered(Class<T> classType)
+    {
+        var instance = this.get(classType, false);
+        if (instance != null)
+            return CompletableFuture.completedFuture(instance);
+
+        var future = waiters.computeIfAbsent(classType, t -> new CompletableFuture<>());
+
+        //可能在检查和加入等待之间被注册
+        instance = this.get(classType, false);
+        if (instance != null)
+        {
+            waiters.remove(classType, future);
+            future.complete(instance);
+        }
+
+        //返回副本，避免调用方直接完成共用的Future
+        return (CompletableFuture<T>) future.copy();
     }
 
     /**
@@ -64,10 +122,21 @@ public class DependencyContainer
 
     /**
      * 反注册所有对象
+     * <br>
+     * 通过{@link DependencyContainer#whenRegistered(Class)}等待中的Future会以{@link NullDependencyException}完成
      */
     public void unCacheAll()
     {
         cacheMap.clear();
+
+        //仍在等待的对象不会再被通知，以免之后重新注册时处理已经过时的对象
+        for (var type : waiters.keySet())
+        {
+            var waiter = waiters.remove(type);
+
+            if (waiter != null)
+                waiter.completeExceptionally(new NullDependencyException("The dependency container was cleared before %s was registered".formatted(type)));
+        }
     }
 
     /**
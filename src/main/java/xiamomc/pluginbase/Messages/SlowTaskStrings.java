@@ -0,0 +1,71 @@
+package xiamomc.pluginbase.Messages;
+
+/**
+ * {@link xiamomc.pluginbase.Command.SlowTasksSubCommand}使用的消息
+ * <br>
+ * 将此类加入{@link MessageStore#getStrings()}即可在消息文件中翻译这些消息
+ */
+public class SlowTaskStrings implements IStrings
+{
+    private static FormattableMessage getFormattable(String key, String fallback)
+    {
+        return new FormattableMessage("pluginbase.slow_tasks." + key, fallback);
+    }
+
+    public static FormattableMessage help()
+    {
+        return getFormattable("help", "查看或清空执行缓慢的计划任务记录");
+    }
+
+    public static FormattableMessage detectionDisabled()
+    {
+        return getFormattable("detection_disabled", "此插件没有启用缓慢任务检测");
+    }
+
+    public static FormattableMessage recordsCleared()
+    {
+        return getFormattable("records_cleared", "已清空缓慢任务记录");
+    }
+
+    /**
+     * 可用的占位符：count、threshold
+     */
+    public static FormattableMessage header()
+    {
+        return getFormattable("header", "共有<count>条耗时超过<threshold>ms的任务记录：");
+    }
+
+    /**
+     * 可用的占位符：time、tick、kind、task、duration、thread、owner
+     */
+    public static FormattableMessage record()
+    {
+        return getFormattable("record", "[<time>] 第<tick>刻 <kind><task> 耗时<duration>ms（<thread><owner>）");
+    }
+
+    public static FormattableMessage taskKind()
+    {
+        return getFormattable("kind_sync", "任务");
+    }
+
+    public static FormattableMessage asyncTaskKind()
+    {
+        return getFormattable("kind_async", "异步任务");
+    }
+
+    /**
+     * 可用的占位符：owner
+     */
+    public static FormattableMessage ownerSuffix()
+    {
+        return getFormattable("owner_suffix", "，来自<owner>");
+    }
+
+    /**
+     * 可用的占位符：count
+     */
+    public static FormattableMessage moreFrames()
+    {
+        return getFormattable("more_frames", "    ...（还有<count>帧）");
+    }
+}
@@ -0,0 +1,141 @@
+package xiamomc.pluginbase;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 按键串行执行任务的异步执行器
+ * <br>
+ * 同一个键的任务会按提交顺序逐个执行，不同键的任务可以并行执行。
+ * 每个键只在有任务时才占用底层Executor中的一个任务，不会为空闲的键保留线程，整个过程不使用锁。
+ */
+public class OrderedExecutor
+{
+    /**
+     * 一个键连续执行多少个任务后让出底层Executor
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * 已失效的键所使用的任务计数
+     */
+    private static final int DEAD = -1;
+
+    private final Executor executor;
+
+    private final Consumer<Throwable> exceptionHandler;
+
+    private final Map<Object, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor 实际执行任务的Executor
+     * @param exceptionHandler 处理任务抛出的异常
+     */
+    public OrderedExecutor(Executor executor, Consumer<Throwable> exceptionHandler)
+    {
+        this.executor = executor;
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * 异步执行一个任务，同一个键的任务会在之前的任务完成后才开始执行
+     *
+     * @param key 用于排序的键，需要正确实现equals和hashCode
+     */
+    public void execute(Object key, Runnable runnable)
+    {
+        while (true)
+        {
+            var lane = lanes.computeIfAbsent(key, Lane::new);
+            var count = lane.count.get();
+
+            //此键刚刚执行完所有任务并正在移除，帮忙移除后重试
+            if (count == DEAD)
+            {
+                lanes.remove(key, lane);
+                continue;
+            }
+
+            if (!lane.count.compareAndSet(count, count + 1)) continue;
+
+            lane.tasks.offer(runnable);
+
+            //第一个任务负责启动执行
+            if (count == 0)
+                executor.execute(lane);
+
+            return;
+        }
+    }
+
+    /**
+     * @return 当前有等待中或执行中任务的键的数量
+     */
+    public int getActiveKeyCount()
+    {
+        return lanes.size();
+    }
+
+    private final class Lane implements Runnable
+    {
+        private final Object key;
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 已提交但还未执行完的任务数量，为{@link OrderedExecutor#DEAD}时表示此Lane已失效
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Lane(Object key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public void run()
+        {
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                Runnable task;
+
+                //计数已经增加但任务还未放入队列，等待提交方完成
+                while ((task = tasks.poll()) == null)
+                    Thread.onSpinWait();
+
+                try
+                {
+                    task.run();
+                }
+                catch (Throwable t)
+                {
+                    exceptionHandler.accept(t);
+                }
+
+                if (count.decrementAndGet() == 0)
+                {
+                    //没有后续任务时让此Lane失效，之后的任务会使用新的Lane
+                    //如果失败，说明有新任务在计数归零后提交，提交方会重新启动执行
+                    if (count.compareAndSet(0, DEAD))
+                        lanes.remove(key, this);
+
+                    return;
+                }
+            }
+
+            //还有剩余的任务，重新排队以免长时间占用底层Executor
+            executor.execute(this);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "OrderedExecutor.Lane[" + key + "]";
+        }
+    }
+}
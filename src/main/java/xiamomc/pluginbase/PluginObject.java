@@ -1,21 +1,12 @@
 package xiamomc.pluginbase;
 
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import org.apache.commons.lang3.ClassUtils;
 import org.slf4j.Logger;
-import xiamomc.pluginbase.Annotations.Initializer;
-import xiamomc.pluginbase.Annotations.Resolved;
-import xiamomc.pluginbase.Exceptions.NullDependencyException;
 import xiamomc.pluginbase.Managers.DependencyContainer;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 public abstract class PluginObject<P extends XiaMoJavaPlugin>
@@ -26,9 +17,33 @@ public abstract class PluginObject<P extends XiaMoJavaPlugin>
 
     protected final Logger logger = plugin.getSLF4JLogger();
 
-    private List<Field> fieldsToResolve = new ObjectArrayList<>();
+    /**
+     * 此对象计划的所有任务，调度器只会通过它间接引用此对象
+     * <br>
+     * 只在第一次计划任务时创建，通过this同步
+     */
+    private volatile TaskGroup taskGroup;
 
-    private final List<Method> initializerMethods = new ObjectArrayList<>();
+    private volatile boolean disposed;
+
+    private volatile boolean ready;
+
+    /**
+     * 立即注入模式中，剩余的字段是否已经注入
+     */
+    private volatile boolean deferredFieldsInjected;
+
+    /**
+     * 只在第一次调用{@link PluginObject#whenReady()}时创建，通过this同步
+     */
+    private CompletableFuture<Void> readyFuture;
+
+    private Throwable injectionFailure;
+
+    /**
+     * 立即注入模式中，仍在等待注册的依赖
+     */
+    private volatile List<CompletableFuture<?>> pendingDependencies;
 
     protected abstract String getPluginNamespace();
 
@@ -39,166 +54,230 @@ public abstract class PluginObject<P extends XiaMoJavaPlugin>
 
     //region 依赖处理
 
-    private void addInitializerMethods(Class<?> clazz)
+    private void initialDependencyResolve()
     {
-        var methods = Arrays.stream(clazz.getDeclaredMethods())
-                .filter(m -> m.isAnnotationPresent(Initializer.class)).toList();
-
-        if (methods.size() > 1) throw new RuntimeException(clazz + "中不能拥有多个初始化方法");
+        try
+        {
+            var plan = InjectionPlan.of(this.getClass());
 
-        methods.stream().findFirst().ifPresent(this.initializerMethods::add);
-    }
+            //解析需要立即获取依赖的字段
+            plan.injectImmediate(this, dependencies);
 
-    private void resolveFields(Class<?> clazz)
-    {
-        var ftr = new ArrayList<>(Arrays.stream(clazz.getDeclaredFields())
-                .filter(f -> f.isAnnotationPresent(Resolved.class)).toList());
+            if (!plan.hasDeferredWork())
+            {
+                this.markReady(null);
+                return;
+            }
 
-        var fieldToResolveNow = ftr.stream()
-                .filter(f -> f.getAnnotation(Resolved.class).shouldSolveImmediately()).toList();
+            if (plan.isEager() || dependencies.isEagerInjection())
+            {
+                this.resolveEagerly(plan);
+                return;
+            }
 
-        for (Field f : fieldToResolveNow)
-        {
-            resolveField(f);
-            ftr.remove(f);
+            //剩余的字段和初始化方法统一在下一刻处理
+            plugin.getDeferredInjectionQueue().add(this);
         }
+        catch (Throwable t)
+        {
+            logger.error("初始化" + this + "失败: " + t.getMessage());
+            t.printStackTrace();
 
-        fieldsToResolve.addAll(ftr);
+            this.markReady(t);
+        }
     }
 
-    private void initialDependencyResolve()
+    /**
+     * 由{@link DeferredInjectionQueue}在主线程中调用
+     */
+    void resolveRemainingDependencies()
     {
+        //已经释放的对象不再处理
+        if (disposed) return;
+
         try
         {
-            //region 获取初始化方法
-
-            var superclasses = ClassUtils.getAllSuperclasses(this.getClass());
-            Collections.reverse(superclasses);
-
-            for (var c : superclasses)
-                addInitializerMethods(c);
-
-            addInitializerMethods(this.getClass());
-
-            //endregion
-
-            //region 解析需要获取依赖的字段
-
-            for (var c : superclasses)
-                resolveFields(c);
-
-            resolveFields(this.getClass());
+            var plan = InjectionPlan.of(this.getClass());
 
-            this.addSchedule(this::resolveRemainingDependencies);
-
-            //endregion
+            //立即注入模式中字段已经注入，只需执行初始化方法
+            if (deferredFieldsInjected)
+                plan.initialize(this, dependencies);
+            else
+                plan.injectDeferred(this, dependencies);
         }
         catch (Throwable t)
         {
-            logger.error("初始化" + this + "失败: " + t.getMessage());
-            t.printStackTrace();
-
-            fieldsToResolve.clear();
-            initializerMethods.clear();
+            this.markReady(t);
+            throw t;
         }
+
+        this.markReady(null);
     }
 
-    private void resolveRemainingDependencies()
+    /**
+     * 在所有必需的依赖都注册后立即注入字段，不等待下一刻
+     */
+    private void resolveEagerly(InjectionPlan plan)
     {
-        //自动对有Resolved的字段获取依赖
-        for (Field field : fieldsToResolve)
+        var missing = plan.getRequiredDependencies().stream()
+                .filter(type -> dependencies.get(type, false) == null)
+                .toList();
+
+        if (missing.isEmpty())
         {
-            resolveField(field);
+            this.injectEagerly(plan, true);
+            return;
         }
 
-        fieldsToResolve.clear();
-        fieldsToResolve = null;
+        //在最后一个缺少的依赖被注册时注入
+        var remaining = new AtomicInteger(missing.size());
+        var futures = new ArrayList<CompletableFuture<?>>(missing.size());
+
+        this.pendingDependencies = futures;
 
-        //执行初始化方法
-        for (var initializerMethod : initializerMethods)
+        for (var type : missing)
         {
-            //和Resolved一样，只对private生效
-            if (Modifier.isPrivate(initializerMethod.getModifiers()))
+            var future = dependencies.whenRegistered(type);
+
+            synchronized (futures)
             {
-                //获取参数
-                var parameters = initializerMethod.getParameters();
+                futures.add(future);
+            }
 
-                //对应的值
-                var values = new ObjectArrayList<>();
+            future.whenComplete((instance, failure) ->
+            {
+                if (disposed) return;
 
-                //逐个获取依赖
-                for (var p : parameters)
+                //依赖表在注册前被清空
+                if (failure != null)
                 {
-                    var targetClassType = p.getType();
-                    Object value = dependencies.get(targetClassType, false);
-
-                    if (value == null) throwDependencyNotFound(targetClassType);
-
-                    values.add(value);
+                    this.pendingDependencies = null;
+                    this.markReady(failure);
+                    return;
                 }
 
-                //尝试调用
-                try
+                if (remaining.decrementAndGet() == 0)
                 {
-                    initializerMethod.setAccessible(true);
+                    this.pendingDependencies = null;
+                    this.injectEagerly(plan, false);
+                }
+            });
+        }
+    }
 
-                    initializerMethod.invoke(this, values.toArray());
+    /**
+     * 不再等待尚未注册的依赖，让依赖表不再引用此对象
+     */
+    private void detachPendingDependencies()
+    {
+        var futures = pendingDependencies;
+        if (futures == null) return;
 
-                    initializerMethod.setAccessible(false);
-                }
-                catch (IllegalAccessException | InvocationTargetException e)
-                {
-                    initializerMethod.setAccessible(false);
-                    throw new RuntimeException(e.getCause() != null ? e.getCause() : e);
-                }
-            }
-            else
-                throw new RuntimeException("初始化方法不是private");
+        this.pendingDependencies = null;
+
+        synchronized (futures)
+        {
+            for (var future : futures)
+                future.cancel(false);
         }
     }
 
-    private void resolveField(Field field)
+    /**
+     * 注入剩余的字段，并安排执行初始化方法
+     * <br>
+     * 构造过程中子类的字段初始化语句还未执行，因此初始化方法只会在构造完成后于主线程中执行：
+     * 依赖在主线程中注册时立即执行，否则交给下一刻的{@link DeferredInjectionQueue}
+     *
+     * @param constructing 是否仍在此对象的构造过程中
+     */
+    private void injectEagerly(InjectionPlan plan, boolean constructing)
     {
-        //暂时让Resolved只对private生效
-        if (Modifier.isPrivate(field.getModifiers()))
+        try
         {
-            field.setAccessible(true);
+            plan.injectDeferredFields(this, dependencies);
+        }
+        catch (Throwable t)
+        {
+            this.markReady(t);
+            plugin.onDeferredInjectionFailed(this, t);
+            return;
+        }
 
-            //Logger.info("Resolving " + field.getName() + "(" + field.getType() + ")" + "in " + this);
+        this.deferredFieldsInjected = true;
 
-            try
-            {
-                //获取目标Class
-                Class<?> targetClassType = field.getType();
+        if (!plan.hasInitializer())
+        {
+            this.markReady(null);
+            return;
+        }
 
-                //从DependencyManager获取值
-                Object value = dependencies.get(targetClassType, false);
+        if (constructing || !plugin.scheduler.isTickThread())
+        {
+            plugin.getDeferredInjectionQueue().add(this);
+            return;
+        }
 
-                //判断是不是null
-                if (value == null && !field.getAnnotation(Resolved.class).allowNull())
-                    throwDependencyNotFound(targetClassType);
+        try
+        {
+            this.resolveRemainingDependencies();
+        }
+        catch (Throwable t)
+        {
+            plugin.onDeferredInjectionFailed(this, t);
+        }
+    }
 
-                //设置值
-                field.set(this, value);
-            }
-            catch (IllegalAccessException e)
-            {
-                field.setAccessible(false);
-                throw new RuntimeException(e.getCause() != null ? e.getCause() : e);
-            }
+    private void markReady(Throwable failure)
+    {
+        CompletableFuture<Void> future;
 
-            field.setAccessible(false);
+        synchronized (this)
+        {
+            if (ready) return;
+
+            this.injectionFailure = failure;
+            this.ready = true;
+
+            future = readyFuture;
         }
+
+        if (future == null) return;
+
+        if (failure == null)
+            future.complete(null);
         else
-            throw new RuntimeException("字段必须是private");
+            future.completeExceptionally(failure);
     }
 
-    private void throwDependencyNotFound(Class<?> targetClassType)
+    /**
+     * @return 此对象的依赖注入和初始化方法是否已经完成，包括失败的情况
+     */
+    public boolean isReady()
     {
-        throw new NullDependencyException(this.getClass().getSimpleName()
-                + "依赖"
-                + targetClassType.getSimpleName()
-                + ", 但其尚未被注册");
+        return ready;
+    }
+
+    /**
+     * 获取一个在此对象的依赖注入和初始化方法完成时完成的Future
+     * <br>
+     * 注入或初始化失败时，Future会以对应的异常完成；对象在注入前被释放时，Future不会完成
+     */
+    public CompletableFuture<Void> whenReady()
+    {
+        synchronized (this)
+        {
+            if (readyFuture == null)
+            {
+                if (!ready)
+                    readyFuture = new CompletableFuture<>();
+                else if (injectionFailure == null)
+                    readyFuture = CompletableFuture.completedFuture(null);
+                else
+                    readyFuture = CompletableFuture.failedFuture(injectionFailure);
+            }
+
+            return readyFuture;
+        }
     }
 
     //endregion
@@ -224,17 +303,89 @@ public abstract class PluginObject<P extends XiaMoJavaPlugin>
 
     protected ScheduleInfo addSchedule(Runnable r)
     {
-        return plugin.schedule(r);
+        return this.addSchedule(r, 1);
     }
 
     protected ScheduleInfo addSchedule(Runnable r, int delay)
     {
-        return plugin.schedule(r, delay);
+        return this.addSchedule(r, delay, false);
     }
 
     protected ScheduleInfo addSchedule(Runnable r, int delay, boolean isAsync)
     {
-        return plugin.schedule(r, delay, isAsync);
+        return this.addSchedule(r, delay, isAsync, TaskPriority.NORMAL);
+    }
+
+    protected ScheduleInfo addSchedule(Runnable r, int delay, TaskPriority priority)
+    {
+        return this.addSchedule(r, delay, false, priority);
+    }
+
+    protected ScheduleInfo addSchedule(Runnable r, int delay, boolean isAsync, TaskPriority priority)
+    {
+        return plugin.schedule(r, delay, isAsync, priority, getTaskGroup());
+    }
+
+    protected ScheduleInfo addRepeatingSchedule(Runnable r, int initialDelay, int period)
+    {
+        return this.addRepeatingSchedule(r, initialDelay, period, false);
+    }
+
+    protected ScheduleInfo addRepeatingSchedule(Runnable r, int initialDelay, int period, boolean isAsync)
+    {
+        return this.addRepeatingSchedule(r, initialDelay, period, isAsync, TaskPriority.NORMAL);
+    }
+
+    protected ScheduleInfo addRepeatingSchedule(Runnable r, int initialDelay, int period, boolean isAsync, TaskPriority priority)
+    {
+        return plugin.scheduleRepeating(r, initialDelay, period, isAsync, priority, getTaskGroup());
+    }
+
+    /**
+     * 获取此对象的任务组，异常过多时会和同一个类的其他对象一起被熔断
+     */
+    private TaskGroup getTaskGroup()
+    {
+        var group = taskGroup;
+        if (group != null) return group;
+
+        synchronized (this)
+        {
+            if (taskGroup == null)
+                taskGroup = new TaskGroup(this.getClass().getName(), plugin.getCircuitBreaker(this.getClass()));
+
+            return taskGroup;
+        }
+    }
+
+    /**
+     * 取消此对象所有等待中的计划任务，包括重复任务
+     */
+    protected void cancelAllSchedules()
+    {
+        var group = taskGroup;
+        if (group != null)
+            group.cancelAll();
+    }
+
+    /**
+     * 释放此对象，取消其所有计划任务，并不再等待尚未注册的依赖
+     * <br>
+     * 之后调度器和依赖表不会再引用此对象，仍在计划中的任务会在到期时被直接丢弃
+     */
+    public void dispose()
+    {
+        this.disposed = true;
+        this.cancelAllSchedules();
+        this.detachPendingDependencies();
+    }
+
+    /**
+     * @return 此对象所属的类的任务当前是否因异常过多而被隔离
+     */
+    protected boolean isQuarantined()
+    {
+        return plugin.getCircuitBreaker(this.getClass()).isOpen(plugin.getCurrentTick());
     }
     //endregion
 }
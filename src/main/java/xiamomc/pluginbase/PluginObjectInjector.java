@@ -0,0 +1,80 @@
+package xiamomc.pluginbase;
+
+import xiamomc.pluginbase.Exceptions.NullDependencyException;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.List;
+
+/**
+ * 为某个类中声明的{@link xiamomc.pluginbase.Annotations.Resolved}字段和{@link xiamomc.pluginbase.Annotations.Initializer}方法注入依赖
+ * <br>
+ * 每个注入器只负责一个类自己声明的成员，父类的成员由父类的注入器处理。
+ * 使用pluginbase-processor编译时，会为每个类生成名为{@code 类名$$Injector}的实现；
+ * 没有生成的实现时，{@link PluginObject}会通过反射处理。
+ *
+ * @param <T> 负责的类
+ */
+public interface PluginObjectInjector<T>
+{
+    /**
+     * 生成的注入器类名的后缀
+     */
+    public static final String GENERATED_SUFFIX = "$$Injector";
+
+    /**
+     * 注入需要在创建时立即解析的字段
+     */
+    public void injectImmediate(T target, DependencyContainer container);
+
+    /**
+     * 注入在下一刻解析的字段
+     */
+    public void injectDeferred(T target, DependencyContainer container);
+
+    /**
+     * 调用初始化方法，会在所有字段都注入后执行
+     */
+    public void initialize(T target, DependencyContainer container);
+
+    /**
+     * @return 是否有需要在创建时立即解析的字段
+     */
+    public boolean hasImmediateWork();
+
+    /**
+     * @return 是否有需要在下一刻处理的字段或初始化方法
+     */
+    public boolean hasDeferredWork();
+
+    /**
+     * @return 是否有初始化方法
+     */
+    public boolean hasInitializer();
+
+    /**
+     * @return 注入剩余字段和调用初始化方法时必须已经注册的依赖类型，不包括允许为null的字段
+     */
+    public List<Class<?>> getRequiredDependencies();
+
+    /**
+     * 从依赖表中获取一个依赖
+     *
+     * @param target 需要此依赖的对象，用于错误信息
+     * @param allowNull 找不到时是否返回null
+     * @throws NullDependencyException 找不到依赖且不允许为null
+     */
+    public static <D> D resolve(Object target, DependencyContainer container, Class<D> type, boolean allowNull)
+    {
+        var value = container.get(type, false);
+
+        if (value == null && !allowNull)
+        {
+            throw new NullDependencyException(target.getClass().getSimpleName()
+                    + "依赖"
+                    + type.getSimpleName()
+                    + ", 但其尚未被注册");
+        }
+
+        return value;
+    }
+}
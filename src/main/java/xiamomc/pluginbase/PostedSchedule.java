@@ -0,0 +1,64 @@
+package xiamomc.pluginbase;
+
+/**
+ * 由{@link TickScheduler#post(Runnable, int, boolean)}计划的一次性任务，执行后会被调度器回收复用
+ * <br>
+ * 此类的对象不会被交给调用方，{@link ScheduleInfo}中的公开字段在这里没有意义，实际的任务保存在调度器使用的字段中。
+ */
+final class PostedSchedule extends ScheduleInfo
+{
+    private int delay;
+
+    private long tickScheduled;
+
+    /**
+     * 回收池中的下一个任务
+     */
+    PostedSchedule nextFree;
+
+    PostedSchedule()
+    {
+        super(null, 0, 0, false);
+    }
+
+    /**
+     * 重新初始化此任务
+     */
+    void reuse(Runnable function, int delay, long tickScheduled, boolean isAsync)
+    {
+        this.delay = delay;
+        this.tickScheduled = tickScheduled;
+        this.nextFree = null;
+
+        this.reset(function, isAsync, tickScheduled + Math.max(delay, 1));
+    }
+
+    /**
+     * 在放回回收池前清除对任务的引用
+     */
+    void release()
+    {
+        this.task = null;
+        this.scheduler = null;
+        this.breaker = null;
+        this.groupTask = null;
+    }
+
+    @Override
+    ScheduleInfo snapshot()
+    {
+        var copy = new ScheduleInfo(task, delay, tickScheduled, async);
+        copy.setPriority(getPriority());
+
+        return copy;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "于第" + this.tickScheduled + "刻创建，"
+                + "并计划于" + this.delay + "刻后执行的"
+                + (async ? "异步" : "") + "计划任务"
+                + "（" + this.task + "）";
+    }
+}
@@ -0,0 +1,284 @@
+package xiamomc.pluginbase;
+
+import xiamomc.pluginbase.Annotations.Initializer;
+import xiamomc.pluginbase.Annotations.Resolved;
+import xiamomc.pluginbase.Exceptions.NullDependencyException;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 没有编译时生成的注入器时，通过反射扫描一个类声明的成员并进行注入
+ * <br>
+ * 扫描只在创建时进行一次，注入通过创建时生成的MethodHandle进行，不会在每次注入时修改字段或方法的可访问性。
+ */
+final class ReflectionInjector implements PluginObjectInjector<Object>
+{
+    private final List<FieldInjector> immediateFields;
+
+    private final List<FieldInjector> deferredFields;
+
+    private final InitializerInjector initializer;
+
+    private final List<Class<?>> requiredDependencies;
+
+    /**
+     * @throws RuntimeException 此类中有多个初始化方法
+     */
+    ReflectionInjector(Class<?> type)
+    {
+        Method found = null;
+
+        for (var m : type.getDeclaredMethods())
+        {
+            if (!m.isAnnotationPresent(Initializer.class)) continue;
+
+            if (found != null) throw new RuntimeException(type + "中不能拥有多个初始化方法");
+            found = m;
+        }
+
+        var immediate = new ArrayList<FieldInjector>();
+        var deferred = new ArrayList<FieldInjector>();
+        var required = new LinkedHashSet<Class<?>>();
+
+        for (var f : type.getDeclaredFields())
+        {
+            var resolved = f.getAnnotation(Resolved.class);
+            if (resolved == null) continue;
+
+            var injector = new FieldInjector(f, resolved.allowNull());
+
+            if (resolved.shouldSolveImmediately())
+            {
+                immediate.add(injector);
+            }
+            else
+            {
+                deferred.add(injector);
+                if (!resolved.allowNull()) required.add(f.getType());
+            }
+        }
+
+        if (found != null)
+            required.addAll(List.of(found.getParameterTypes()));
+
+        this.immediateFields = List.copyOf(immediate);
+        this.deferredFields = List.copyOf(deferred);
+        this.initializer = found == null ? null : new InitializerInjector(found);
+        this.requiredDependencies = List.copyOf(required);
+    }
+
+    @Override
+    public void injectImmediate(Object target, DependencyContainer container)
+    {
+        for (var field : immediateFields)
+            field.inject(target, container);
+    }
+
+    @Override
+    public void injectDeferred(Object target, DependencyContainer container)
+    {
+        for (var field : deferredFields)
+            field.inject(target, container);
+    }
+
+    @Override
+    public void initialize(Object target, DependencyContainer container)
+    {
+        if (initializer != null)
+            initializer.invoke(target, container);
+    }
+
+    @Override
+    public boolean hasImmediateWork()
+    {
+        return !immediateFields.isEmpty();
+    }
+
+    @Override
+    public boolean hasDeferredWork()
+    {
+        return !deferredFields.isEmpty() || initializer != null;
+    }
+
+    @Override
+    public boolean hasInitializer()
+    {
+        return initializer != null;
+    }
+
+    @Override
+    public List<Class<?>> getRequiredDependencies()
+    {
+        return requiredDependencies;
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> type)
+    {
+        try
+        {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new RuntimeException("无法访问" + type + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static final MethodHandle requireHandle;
+
+    static
+    {
+        try
+        {
+            requireHandle = MethodHandles.lookup().findStatic(PluginObjectInjector.class, "resolve",
+                    MethodType.methodType(Object.class, Object.class, DependencyContainer.class, Class.class, boolean.class));
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 为一个标记了{@link Resolved}的字段注入依赖
+     */
+    private static final class FieldInjector
+    {
+        private final Class<?> type;
+
+        private final boolean allowNull;
+
+        /**
+         * 类型为(Object, Object)void的setter，字段不是private时为null
+         */
+        private final MethodHandle setter;
+
+        private FieldInjector(Field field, boolean allowNull)
+        {
+            this.type = field.getType();
+            this.allowNull = allowNull;
+
+            //暂时让Resolved只对private生效，在注入时再报错
+            if (!Modifier.isPrivate(field.getModifiers()))
+            {
+                this.setter = null;
+                return;
+            }
+
+            try
+            {
+                //final字段只有在可访问时才能获取setter，这里的Field是副本，不会影响其他地方
+                if (Modifier.isFinal(field.getModifiers()))
+                    field.setAccessible(true);
+
+                this.setter = lookupFor(field.getDeclaringClass()).unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new RuntimeException("无法访问字段" + field + ": " + e.getMessage(), e);
+            }
+        }
+
+        public void inject(Object target, DependencyContainer container)
+        {
+            if (setter == null)
+                throw new RuntimeException("字段必须是private");
+
+            var value = PluginObjectInjector.resolve(target, container, type, allowNull);
+
+            try
+            {
+                setter.invokeExact(target, value);
+            }
+            catch (Throwable t)
+            {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+
+    /**
+     * 获取初始化方法需要的依赖并调用
+     */
+    private static final class InitializerInjector
+    {
+        /**
+         * 类型为(Object, DependencyContainer)void的调用器，会自行从依赖表中获取每个参数，方法不是private时为null
+         */
+        private final MethodHandle invoker;
+
+        private InitializerInjector(Method method)
+        {
+            //和Resolved一样，只对private生效
+            if (!Modifier.isPrivate(method.getModifiers()))
+            {
+                this.invoker = null;
+                return;
+            }
+
+            MethodHandle handle;
+
+            try
+            {
+                handle = lookupFor(method.getDeclaringClass()).unreflect(method);
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new RuntimeException("无法访问初始化方法" + method + ": " + e.getMessage(), e);
+            }
+
+            var parameterTypes = method.getParameterTypes();
+            var count = parameterTypes.length;
+
+            //(Object, Object...)void
+            handle = handle.asType(MethodType.genericMethodType(count + 1).changeReturnType(void.class));
+
+            //从后往前把每个参数替换为(Object, DependencyContainer)的依赖获取
+            for (int i = count; i >= 1; i--)
+            {
+                var getter = MethodHandles.insertArguments(requireHandle, 2, parameterTypes[i - 1], false);
+                handle = MethodHandles.collectArguments(handle, i, getter);
+            }
+
+            //此时的类型为(Object, [Object, DependencyContainer] * count)void，把所有的参数合并为前两个
+            var reorder = new int[1 + count * 2];
+            for (int i = 0; i < count; i++)
+            {
+                reorder[1 + i * 2] = 0;
+                reorder[2 + i * 2] = 1;
+            }
+
+            this.invoker = MethodHandles.permuteArguments(handle,
+                    MethodType.methodType(void.class, Object.class, DependencyContainer.class), reorder);
+        }
+
+        public void invoke(Object target, DependencyContainer container)
+        {
+            if (invoker == null)
+                throw new RuntimeException("初始化方法不是private");
+
+            try
+            {
+                invoker.invokeExact(target, container);
+            }
+            catch (NullDependencyException e)
+            {
+                throw e;
+            }
+            catch (Throwable t)
+            {
+                throw new RuntimeException(t);
+            }
+        }
+    }
+}
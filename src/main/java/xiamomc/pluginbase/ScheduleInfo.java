@@ -9,11 +9,117 @@ public class ScheduleInfo
     public final long TickScheduled;
     public final boolean isAsync;
 
-    private boolean isCanceled = false;
+    /**
+     * 重复执行的间隔，为0时只执行一次
+     */
+    public final int Period;
 
+    /**
+     * 调度器实际执行的任务，与{@link ScheduleInfo#Function}相同，回收复用的任务会重新赋值
+     */
+    Runnable task;
+
+    /**
+     * 是否异步执行，与{@link ScheduleInfo#isAsync}相同，回收复用的任务会重新赋值
+     */
+    boolean async;
+
+    private volatile boolean isCanceled = false;
+
+    private volatile boolean isDeferrable = false;
+
+    private volatile CatchUpPolicy catchUpPolicy;
+
+    private volatile TaskPriority priority = TaskPriority.NORMAL;
+
+    /**
+     * 计划执行的刻，由调度器维护
+     */
+    long deadline;
+
+    /**
+     * 时间轮槽位中的上一个和下一个任务
+     */
+    ScheduleInfo prev, next;
+
+    /**
+     * 所在的时间轮槽位
+     */
+    int bucket = TimingWheel.NO_BUCKET;
+
+    /**
+     * 接受此任务的调度器，用于在取消时将任务移出计划
+     */
+    TickScheduler scheduler;
+
+    /**
+     * 此任务所有者的熔断器，为null时由插件统一处理异常
+     */
+    CircuitBreaker breaker;
+
+    /**
+     * 此任务所属的任务组中对应的条目，不属于任何组时为null
+     */
+    TaskGroup.GroupTask groupTask;
+
+    /**
+     * 异步执行此任务时交给Executor的Runnable，创建后会一直复用
+     */
+    Runnable asyncRunner;
+
+    /**
+     * 上一次交给异步Executor的时间
+     */
+    long dispatchedAt;
+
+    /**
+     * 此任务被取消或被调度器丢弃时调用，可能在任意线程中调用
+     */
+    Runnable onCanceled;
+
+    /**
+     * 取消此任务，可以在任意线程调用
+     * <br>
+     * 在主线程调用时会立即将其从计划中移除，在其他线程调用时会在下一刻开始时移除
+     */
     public void cancel()
     {
+        if (!this.markCanceled()) return;
+
+        var scheduler = this.scheduler;
+        if (scheduler != null)
+            scheduler.onScheduleCanceled(this);
+    }
+
+    /**
+     * 由调度器在丢弃此任务时调用，效果与{@link ScheduleInfo#cancel()}相同
+     * <br>
+     * 被丢弃的任务已经不在计划中，因此不需要再通知调度器
+     */
+    void drop()
+    {
+        this.markCanceled();
+    }
+
+    /**
+     * @return 此任务之前是否还未被取消
+     */
+    private boolean markCanceled()
+    {
+        if (this.isCanceled) return false;
+
         this.isCanceled = true;
+
+        //让任务组不再引用此任务
+        var groupTask = this.groupTask;
+        if (groupTask != null)
+            groupTask.generation.release(groupTask);
+
+        var onCanceled = this.onCanceled;
+        if (onCanceled != null)
+            onCanceled.run();
+
+        return true;
     }
 
     public boolean isCanceled()
@@ -21,13 +127,110 @@ public class ScheduleInfo
         return isCanceled;
     }
 
+    public boolean isRepeating()
+    {
+        return Period > 0;
+    }
+
+    /**
+     * 设置此任务是否可以在当前刻超出时间预算时推迟到下一刻
+     *
+     * @return 此ScheduleInfo
+     */
+    public ScheduleInfo setDeferrable(boolean deferrable)
+    {
+        this.isDeferrable = deferrable;
+        return this;
+    }
+
+    public boolean isDeferrable()
+    {
+        return isDeferrable;
+    }
+
+    /**
+     * 设置此任务的优先级，对已经到期并等待执行的任务不生效
+     *
+     * @return 此ScheduleInfo
+     */
+    public ScheduleInfo setPriority(TaskPriority priority)
+    {
+        this.priority = priority == null ? TaskPriority.NORMAL : priority;
+        return this;
+    }
+
+    public TaskPriority getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * 设置此任务因卡顿而过期时应该如何补上
+     *
+     * @param policy 补偿策略，为null时使用调度器的默认策略
+     * @return 此ScheduleInfo
+     */
+    public ScheduleInfo setCatchUpPolicy(CatchUpPolicy policy)
+    {
+        this.catchUpPolicy = policy;
+        return this;
+    }
+
+    /**
+     * @return 此任务的补偿策略，为null时使用调度器的默认策略
+     */
+    public CatchUpPolicy getCatchUpPolicy()
+    {
+        return catchUpPolicy;
+    }
+
     public ScheduleInfo(Runnable function, int delay, long tickScheduled, boolean isAsync)
     {
+        this(function, delay, 0, tickScheduled, isAsync);
+    }
+
+    public ScheduleInfo(Runnable function, int delay, int period, long tickScheduled, boolean isAsync)
+    {
+        if (period < 0)
+            throw new IllegalArgumentException("Period cannot be negative");
+
         this.Function = function;
         this.Delay = delay;
+        this.Period = period;
         this.TickScheduled = tickScheduled;
 
         this.isAsync = isAsync;
+
+        this.task = function;
+        this.async = isAsync;
+
+        //延迟不足一刻的任务会在下一刻执行
+        this.deadline = tickScheduled + Math.max(delay, 1);
+    }
+
+    /**
+     * 重新初始化一个回收的一次性任务
+     */
+    void reset(Runnable task, boolean async, long deadline)
+    {
+        this.task = task;
+        this.async = async;
+        this.deadline = deadline;
+
+        this.isCanceled = false;
+        this.isDeferrable = false;
+        this.catchUpPolicy = null;
+        this.priority = TaskPriority.NORMAL;
+    }
+
+    /**
+     * 获取可以交给异常处理等外部代码的对象
+     * <br>
+     * 回收复用的任务之后会被重新赋值，因此会返回一个副本
+     */
+    ScheduleInfo snapshot()
+    {
+        return this;
     }
 
     @Override
@@ -35,6 +238,7 @@ public class ScheduleInfo
     {
         return "于第" + this.TickScheduled + "刻创建，"
                 + "并计划于" + this.Delay + "刻后执行的"
+                + (isRepeating() ? "每" + this.Period + "刻重复的" : "")
                 + (isAsync ? "异步" : "") + "计划任务"
                 + "（" + this.Function + "）";
     }
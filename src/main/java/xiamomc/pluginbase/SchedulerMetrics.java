@@ -0,0 +1,113 @@
+package xiamomc.pluginbase;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计划任务的运行统计
+ * <br>
+ * 每刻的数据只由tick线程写入；任务耗时与异步等待时间可能由多个线程同时写入
+ */
+public class SchedulerMetrics
+{
+    private final LatencyHistogram tickDuration = new LatencyHistogram();
+
+    private final LatencyHistogram asyncQueueWait = new LatencyHistogram();
+
+    private final Map<Class<?>, LatencyHistogram> taskDurations = new ConcurrentHashMap<>();
+
+    private final ClassValue<LatencyHistogram> taskDurationLookup = new ClassValue<>()
+    {
+        @Override
+        protected LatencyHistogram computeValue(Class<?> type)
+        {
+            return taskDurations.computeIfAbsent(type, t -> new LatencyHistogram());
+        }
+    };
+
+    private final LongAdder totalTasksRun = new LongAdder();
+
+    private volatile long lastTickNanos;
+
+    private volatile int lastTickTasksRun;
+
+    private volatile int pendingCount;
+
+    void recordTick(long durationNanos, int tasksRun, int pending)
+    {
+        tickDuration.record(durationNanos);
+
+        this.lastTickNanos = durationNanos;
+        this.lastTickTasksRun = tasksRun;
+        this.pendingCount = pending;
+
+        totalTasksRun.add(tasksRun);
+    }
+
+    void recordAsyncWait(long nanos)
+    {
+        asyncQueueWait.record(nanos);
+    }
+
+    void recordTask(Class<?> taskClass, long nanos)
+    {
+        taskDurationLookup.get(taskClass).record(nanos);
+    }
+
+    /**
+     * @return 每刻tick耗时的分布
+     */
+    public LatencyHistogram getTickDuration()
+    {
+        return tickDuration;
+    }
+
+    /**
+     * @return 异步任务从提交到开始执行所等待的时间分布
+     */
+    public LatencyHistogram getAsyncQueueWait()
+    {
+        return asyncQueueWait;
+    }
+
+    /**
+     * @return 按任务类型划分的执行耗时分布
+     */
+    public Map<Class<?>, LatencyHistogram> getTaskDurations()
+    {
+        return Collections.unmodifiableMap(taskDurations);
+    }
+
+    public long getLastTickNanos()
+    {
+        return lastTickNanos;
+    }
+
+    public int getLastTickTasksRun()
+    {
+        return lastTickTasksRun;
+    }
+
+    public long getTotalTasksRun()
+    {
+        return totalTasksRun.sum();
+    }
+
+    /**
+     * @return 上一刻结束时仍在等待执行的任务数量
+     */
+    public int getPendingCount()
+    {
+        return pendingCount;
+    }
+
+    public void reset()
+    {
+        tickDuration.reset();
+        asyncQueueWait.reset();
+        taskDurations.values().forEach(LatencyHistogram::reset);
+        totalTasksRun.reset();
+    }
+}
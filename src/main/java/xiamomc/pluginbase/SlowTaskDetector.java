@@ -0,0 +1,233 @@
+package xiamomc.pluginbase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 记录执行时间超过阈值的计划任务
+ * <br>
+ * 调度器只在任务结束后比较一次耗时，没有超过阈值时不会产生任何记录或分配。
+ * 记录保存在固定大小的环形缓冲区中，新的记录会覆盖最旧的记录。
+ * <br>
+ * 启用调用栈采样后，会有一个后台线程定期检查主线程上正在执行的任务，
+ * 并在其超过阈值时采样一次主线程的调用栈，此时每个同步任务会多出几次volatile写入。
+ */
+public class SlowTaskDetector
+{
+    private volatile long thresholdNanos;
+
+    private final SlowTaskRecord[] records;
+
+    private long recordCount;
+
+    private final boolean captureStacks;
+
+    /**
+     * @param threshold 任务耗时超过多少时记录
+     * @param unit threshold的单位
+     * @param capacity 最多保存多少条记录
+     * @param captureStacks 是否在任务超时期间采样主线程的调用栈
+     */
+    public SlowTaskDetector(long threshold, TimeUnit unit, int capacity, boolean captureStacks)
+    {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Threshold must be greater than 0");
+
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.records = new SlowTaskRecord[capacity];
+        this.captureStacks = captureStacks;
+    }
+
+    public long getThresholdNanos()
+    {
+        return thresholdNanos;
+    }
+
+    public void setThresholdNanos(long thresholdNanos)
+    {
+        if (thresholdNanos <= 0)
+            throw new IllegalArgumentException("Threshold must be greater than 0");
+
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    public boolean isCapturingStacks()
+    {
+        return captureStacks;
+    }
+
+    //region 记录
+
+    void record(ScheduleInfo c, Class<?> taskClass, long durationNanos, long tick, boolean sampled)
+    {
+        var groupTask = c.groupTask;
+        var stack = sampled ? takeSampledStack() : null;
+
+        var record = new SlowTaskRecord(taskClass.getName(), groupTask == null ? null : groupTask.ownerName,
+                durationNanos, tick, c.async, Thread.currentThread().getName(), stack);
+
+        synchronized (records)
+        {
+            records[(int) (recordCount++ % records.length)] = record;
+        }
+    }
+
+    /**
+     * @return 所有保存的记录，从旧到新排列
+     */
+    public List<SlowTaskRecord> getRecords()
+    {
+        synchronized (records)
+        {
+            var count = (int) Math.min(recordCount, records.length);
+            var list = new ArrayList<SlowTaskRecord>(count);
+
+            for (long i = recordCount - count; i < recordCount; i++)
+                list.add(records[(int) (i % records.length)]);
+
+            return list;
+        }
+    }
+
+    /**
+     * @return 自创建或上次清空以来一共记录了多少次
+     */
+    public long getTotalRecorded()
+    {
+        synchronized (records)
+        {
+            return recordCount;
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (records)
+        {
+            for (int i = 0; i < records.length; i++)
+                records[i] = null;
+
+            recordCount = 0;
+        }
+    }
+
+    /**
+     * @param maxFrames 每条记录最多输出多少帧调用栈
+     * @return 所有记录的文本，每个元素为一行
+     */
+    public List<String> dump(int maxFrames)
+    {
+        var recordList = getRecords();
+        var lines = new ArrayList<String>();
+
+        lines.add("共有%d条耗时超过%.2fms的任务记录：".formatted(recordList.size(), thresholdNanos / 1_000_000D));
+
+        for (var record : recordList)
+            lines.addAll(record.toLines(maxFrames));
+
+        return lines;
+    }
+
+    //endregion 记录
+
+    //region 调用栈采样
+
+    private volatile Thread sampler;
+
+    private volatile boolean shutdown;
+
+    /**
+     * 正在执行任务的主线程，没有任务在执行时为null
+     */
+    private volatile Thread watchedThread;
+
+    private volatile long watchedSince;
+
+    /**
+     * 每次开始执行任务时递增，用来区分采样属于哪一个任务
+     */
+    private volatile long watchedSequence;
+
+    private volatile long sampledSequence = -1;
+
+    private volatile StackTraceElement[] sampledStack;
+
+    /**
+     * 在主线程开始执行一个任务前调用
+     */
+    void taskStarted(Thread thread)
+    {
+        if (sampler == null) startSampler();
+
+        watchedSince = System.nanoTime();
+        watchedThread = thread;
+        watchedSequence++;
+    }
+
+    /**
+     * 在主线程执行完一个任务后调用
+     */
+    void taskFinished()
+    {
+        watchedThread = null;
+    }
+
+    private StackTraceElement[] takeSampledStack()
+    {
+        return sampledSequence == watchedSequence ? sampledStack : null;
+    }
+
+    private synchronized void startSampler()
+    {
+        if (sampler != null || shutdown) return;
+
+        var thread = new Thread(this::samplerLoop, "SlowTaskDetector-sampler");
+        thread.setDaemon(true);
+
+        sampler = thread;
+        thread.start();
+    }
+
+    private void samplerLoop()
+    {
+        while (!shutdown)
+        {
+            var threshold = thresholdNanos;
+            LockSupport.parkNanos(this, Math.max(TimeUnit.MILLISECONDS.toNanos(1), threshold / 2));
+
+            var thread = watchedThread;
+            if (thread == null) continue;
+
+            var sequence = watchedSequence;
+            if (sequence == sampledSequence || System.nanoTime() - watchedSince < threshold) continue;
+
+            var stack = thread.getStackTrace();
+
+            //采样期间任务已经结束时丢弃结果
+            if (watchedThread == thread && watchedSequence == sequence)
+            {
+                sampledStack = stack;
+                sampledSequence = sequence;
+            }
+        }
+    }
+
+    /**
+     * 停止采样线程
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+
+        var thread = sampler;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    //endregion 调用栈采样
+}
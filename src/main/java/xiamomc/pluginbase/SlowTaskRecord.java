@@ -0,0 +1,131 @@
+package xiamomc.pluginbase;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次执行时间超过阈值的计划任务
+ */
+public final class SlowTaskRecord
+{
+    private final String taskName;
+
+    @Nullable
+    private final String ownerName;
+
+    private final long durationNanos;
+
+    private final long tick;
+
+    private final boolean async;
+
+    private final String threadName;
+
+    private final long timestampMillis;
+
+    @Nullable
+    private final StackTraceElement[] sampledStack;
+
+    SlowTaskRecord(String taskName, @Nullable String ownerName, long durationNanos, long tick,
+                   boolean async, String threadName, @Nullable StackTraceElement[] sampledStack)
+    {
+        this.taskName = taskName;
+        this.ownerName = ownerName;
+        this.durationNanos = durationNanos;
+        this.tick = tick;
+        this.async = async;
+        this.threadName = threadName;
+        this.timestampMillis = System.currentTimeMillis();
+        this.sampledStack = sampledStack;
+    }
+
+    /**
+     * @return 任务的类名
+     */
+    public String getTaskName()
+    {
+        return taskName;
+    }
+
+    /**
+     * @return 计划此任务的{@link PluginObject}，不是由PluginObject计划的任务则为null
+     */
+    @Nullable
+    public String getOwnerName()
+    {
+        return ownerName;
+    }
+
+    public long getDurationNanos()
+    {
+        return durationNanos;
+    }
+
+    /**
+     * @return 任务执行时所在的刻
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    public boolean isAsync()
+    {
+        return async;
+    }
+
+    public String getThreadName()
+    {
+        return threadName;
+    }
+
+    public long getTimestampMillis()
+    {
+        return timestampMillis;
+    }
+
+    /**
+     * @return 任务超时期间采样到的主线程调用栈，未启用采样或未来得及采样时为null
+     */
+    @Nullable
+    public StackTraceElement[] getSampledStack()
+    {
+        return sampledStack;
+    }
+
+    /**
+     * @param maxFrames 最多输出多少帧调用栈
+     * @return 用于输出的文本，每个元素为一行
+     */
+    public List<String> toLines(int maxFrames)
+    {
+        var lines = new ArrayList<String>();
+        lines.add(toString());
+
+        if (sampledStack != null)
+        {
+            var frames = Math.min(maxFrames, sampledStack.length);
+
+            for (int i = 0; i < frames; i++)
+                lines.add("    at " + sampledStack[i]);
+
+            if (frames < sampledStack.length)
+                lines.add("    ...（还有" + (sampledStack.length - frames) + "帧）");
+        }
+
+        return lines;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[%s] 第%d刻 %s%s 耗时%.2fms（%s%s）".formatted(
+                Instant.ofEpochMilli(timestampMillis), tick,
+                async ? "异步任务" : "任务", taskName,
+                durationNanos / 1_000_000D, threadName,
+                ownerName == null ? "" : "，来自" + ownerName);
+    }
+}
@@ -0,0 +1,137 @@
+package xiamomc.pluginbase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一组可以被一次性取消的计划任务，每个{@link PluginObject}都拥有一个
+ * <br>
+ * 组内的任务只通过当前的{@link Generation}间接引用真正的Runnable，
+ * 因此{@link TaskGroup#cancelAll()}只需丢弃整个Generation，
+ * 仍在时间轮中的任务不会再让其所有者保持可达，并会在到期时被直接丢弃。
+ */
+public class TaskGroup
+{
+    private final String name;
+
+    private final CircuitBreaker breaker;
+
+    private volatile Generation generation = new Generation();
+
+    /**
+     * @param name 组的名称，用于输出
+     * @param breaker 组内任务共用的熔断器，可以为null
+     */
+    public TaskGroup(String name, CircuitBreaker breaker)
+    {
+        this.name = name;
+        this.breaker = breaker;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public CircuitBreaker getCircuitBreaker()
+    {
+        return breaker;
+    }
+
+    /**
+     * 取消组内所有等待中的任务，之后加入的任务不受影响
+     */
+    public void cancelAll()
+    {
+        var old = generation;
+        generation = new Generation();
+
+        old.tasks = null;
+    }
+
+    /**
+     * @return 组内等待中的任务数量
+     */
+    public int size()
+    {
+        var tasks = generation.tasks;
+        return tasks == null ? 0 : tasks.size();
+    }
+
+    GroupTask wrap(Runnable function, boolean repeating)
+    {
+        var gen = generation;
+        var task = new GroupTask(gen, function.getClass(), name, repeating);
+
+        var tasks = gen.tasks;
+        if (tasks != null)
+            tasks.put(task, function);
+
+        return task;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TaskGroup[" + name + "]";
+    }
+
+    static final class Generation
+    {
+        private volatile Map<GroupTask, Runnable> tasks = new ConcurrentHashMap<>();
+
+        boolean isCanceled()
+        {
+            return tasks == null;
+        }
+
+        void release(GroupTask task)
+        {
+            var map = tasks;
+            if (map != null) map.remove(task);
+        }
+    }
+
+    /**
+     * 交给调度器的Runnable，只在执行时才从Generation中取出真正的任务
+     */
+    static final class GroupTask implements Runnable
+    {
+        final Generation generation;
+
+        final Class<?> taskClass;
+
+        final String ownerName;
+
+        private final boolean repeating;
+
+        private GroupTask(Generation generation, Class<?> taskClass, String ownerName, boolean repeating)
+        {
+            this.generation = generation;
+            this.taskClass = taskClass;
+            this.ownerName = ownerName;
+            this.repeating = repeating;
+        }
+
+        @Override
+        public void run()
+        {
+            var tasks = generation.tasks;
+            if (tasks == null) return;
+
+            var function = repeating ? tasks.get(this) : tasks.remove(this);
+
+            if (function != null)
+                function.run();
+        }
+
+        @Override
+        public String toString()
+        {
+            var tasks = generation.tasks;
+            var function = tasks == null ? null : tasks.get(this);
+
+            return function == null ? "已取消的组任务（" + taskClass.getName() + "）" : function.toString();
+        }
+    }
+}
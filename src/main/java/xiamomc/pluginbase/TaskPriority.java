@@ -0,0 +1,22 @@
+package xiamomc.pluginbase;
+
+/**
+ * 计划任务的优先级，{@link TickScheduler}每刻会按照从高到低的顺序执行到期的任务
+ */
+public enum TaskPriority
+{
+    /**
+     * 对延迟敏感的任务，例如响应玩家的操作，不会因超出时间预算而推迟
+     */
+    HIGH,
+
+    /**
+     * 默认的优先级
+     */
+    NORMAL,
+
+    /**
+     * 批量的后台任务，超出时间预算后总会推迟到之后的刻执行
+     */
+    LOW
+}
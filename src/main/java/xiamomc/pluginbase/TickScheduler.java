@@ -0,0 +1,990 @@
+package xiamomc.pluginbase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 计划任务的调度核心，不依赖服务器环境
+ * <br>
+ * 由外部每刻调用一次{@link TickScheduler#tick()}来推进，{@link XiaMoJavaPlugin}会把所有计划任务交给它处理。
+ * 也可以配合{@link HeadlessTickDriver}在普通的JVM中直接使用。
+ */
+public class TickScheduler
+{
+    private final Executor asyncExecutor;
+
+    public TickScheduler()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param asyncExecutor 执行异步任务的Executor
+     */
+    public TickScheduler(Executor asyncExecutor)
+    {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    //region 可覆写的行为
+
+    /**
+     * 异步执行一个任务
+     */
+    protected void runAsync(Runnable runnable)
+    {
+        asyncExecutor.execute(runnable);
+    }
+
+    /**
+     * 处理计划任务抛出的异常，此方法可能在异步线程中调用
+     */
+    protected void onTaskExceptionCaught(Throwable exception, ScheduleInfo scheduleInfo)
+    {
+        exception.printStackTrace();
+    }
+
+    /**
+     * 获取每刻执行计划任务的时间预算
+     * <br>
+     * 超出预算后，被标记为{@link ScheduleInfo#setDeferrable(boolean) 可推迟}的任务会按顺序留到下一刻执行
+     *
+     * @return 以纳秒为单位的预算，小于等于0则不限制
+     */
+    protected long getTickBudgetNanos()
+    {
+        return 0;
+    }
+
+    /**
+     * 获取没有单独设置补偿策略的任务所使用的策略
+     */
+    protected CatchUpPolicy getCatchUpPolicy()
+    {
+        return CatchUpPolicy.SKIP_MISSED;
+    }
+
+    /**
+     * 获取使用{@link CatchUpPolicy#SPREAD}时，每刻最多执行多少个过期的任务
+     */
+    protected int getCatchUpTasksPerTick()
+    {
+        return 16;
+    }
+
+    /**
+     * 是否按照实际经过的时间推进刻
+     * <br>
+     * 启用后，每次调用{@link TickScheduler#tick()}都会根据距离上次调用的时间推进一刻或多刻，
+     * 让以刻为单位的延迟在卡顿时也能对应到实际的时间
+     */
+    protected boolean isWallClockMode()
+    {
+        return false;
+    }
+
+    /**
+     * 获取实际时间模式下每刻的长度
+     *
+     * @return 以纳秒为单位的长度
+     */
+    protected long getTickNanos()
+    {
+        return 50_000_000L;
+    }
+
+    /**
+     * 在每刻执行到期的任务之前调用，暂停执行任务时不会调用
+     */
+    protected void onTickStarted()
+    {
+    }
+
+    //endregion 可覆写的行为
+
+    //region 状态
+
+    private volatile long currentTick = 0;
+
+    /**
+     * Should we cancel executing schedules?
+     */
+    private volatile boolean cancelSchedules = false;
+
+    /**
+     * Should we accept any further schedule calls?
+     */
+    private volatile boolean acceptSchedules = true;
+
+    /**
+     * Should we drop all pending schedules at the start of the next tick?
+     */
+    private volatile boolean dropSchedules = false;
+
+    public long getCurrentTick()
+    {
+        return currentTick;
+    }
+
+    public boolean acceptSchedules()
+    {
+        return acceptSchedules;
+    }
+
+    public void setAcceptSchedules(boolean acceptSchedules)
+    {
+        this.acceptSchedules = acceptSchedules;
+    }
+
+    public boolean cancelSchedules()
+    {
+        return cancelSchedules;
+    }
+
+    /**
+     * 设置是否暂停执行计划任务，暂停期间到期的任务会在恢复后执行
+     */
+    public void setCancelSchedules(boolean cancelSchedules)
+    {
+        this.cancelSchedules = cancelSchedules;
+    }
+
+    /**
+     * 在下一刻开始时丢弃所有等待中的任务，可以在任意线程调用
+     *
+     * @see TickScheduler#clearAllSchedules()
+     */
+    public void dropAllSchedules()
+    {
+        this.dropSchedules = true;
+
+        //之后计划的合并任务不应再合并到即将被丢弃的任务中
+        coalescedTasks.clear();
+    }
+
+    /**
+     * 立即丢弃所有等待中的任务，包括当前刻中还未执行的任务
+     * <br>
+     * 与{@link TickScheduler#dropAllSchedules()}不同，此方法不需要等到下一刻，适合在停止调用tick前使用
+     *
+     * @apiNote 只应在执行tick的线程中，或没有线程正在执行tick时调用
+     */
+    public void clearAllSchedules()
+    {
+        dropSchedules = false;
+
+        //被丢弃的任务不会再执行，将它们标记为已取消，并让任务组不再引用它们
+        ScheduleInfo pending;
+        while ((pending = pendingSchedules.poll()) != null)
+            pending.drop();
+
+        canceledSchedules.clear();
+
+        for (var lane : deferredSchedules)
+        {
+            for (var c : lane)
+                c.drop();
+
+            lane.clear();
+        }
+
+        schedules.clear(ScheduleInfo::drop);
+        coalescedTasks.clear();
+
+        //在任务中调用时，让tick不再继续执行这一刻剩下的任务
+        dueDropped = true;
+    }
+
+    /**
+     * @return 当前线程是否是执行tick的线程
+     */
+    public boolean isTickThread()
+    {
+        return Thread.currentThread() == tickThread;
+    }
+
+    /**
+     * @return 是否没有任何等待中的任务
+     * @apiNote 只应在执行tick的线程中调用
+     */
+    public boolean isIdle()
+    {
+        return schedules.size() == 0
+                && deferredCount() == 0
+                && pendingSchedules.isEmpty();
+    }
+
+    private final SchedulerMetrics metrics = new SchedulerMetrics();
+
+    public SchedulerMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    private volatile SlowTaskDetector slowTaskDetector;
+
+    /**
+     * @return 记录缓慢任务的检测器，未设置时为null
+     */
+    public SlowTaskDetector getSlowTaskDetector()
+    {
+        return slowTaskDetector;
+    }
+
+    /**
+     * 设置记录缓慢任务的检测器，为null时不检测
+     */
+    public void setSlowTaskDetector(SlowTaskDetector detector)
+    {
+        this.slowTaskDetector = detector;
+    }
+
+    //endregion 状态
+
+    //region tick相关
+
+    /**
+     * 等待执行的任务，只能在tick中访问
+     */
+    private final TimingWheel schedules = new TimingWheel(0);
+
+    /**
+     * 新提交的任务，由tick在每刻开始时取出
+     */
+    private final Queue<ScheduleInfo> pendingSchedules = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 在其他线程中被取消的任务，由tick在每刻开始时移出时间轮
+     */
+    private final Queue<ScheduleInfo> canceledSchedules = new ConcurrentLinkedQueue<>();
+
+    private static final int LANES = TaskPriority.values().length;
+
+    /**
+     * 因超出预算而推迟到下一刻的任务，每个优先级一个队列
+     */
+    @SuppressWarnings("unchecked")
+    private final Queue<ScheduleInfo>[] deferredSchedules = new Queue[LANES];
+
+    /**
+     * 当前刻到期的任务，每个优先级一个列表，仅在tick中使用
+     */
+    @SuppressWarnings("unchecked")
+    private final List<ScheduleInfo>[] dueSchedules = new List[LANES];
+
+    {
+        for (int lane = 0; lane < LANES; lane++)
+        {
+            deferredSchedules[lane] = new ArrayDeque<>();
+            dueSchedules[lane] = new ArrayList<>();
+        }
+    }
+
+    private final Consumer<ScheduleInfo> dueConsumer = c -> dueSchedules[c.getPriority().ordinal()].add(c);
+
+    private int deferredCount()
+    {
+        var count = 0;
+
+        for (var lane : deferredSchedules)
+            count += lane.size();
+
+        return count;
+    }
+
+    private void defer(ScheduleInfo c)
+    {
+        deferredSchedules[c.getPriority().ordinal()].add(c);
+    }
+
+    /**
+     * 执行tick的线程
+     */
+    private volatile Thread tickThread;
+
+    private long tickStartNanos;
+
+    private int tasksRunThisTick;
+
+    private boolean overBudget;
+
+    private CatchUpPolicy defaultCatchUpPolicy;
+
+    private int catchUpLimit;
+
+    private int catchUpRunThisTick;
+
+    /**
+     * 当前刻中是否调用了{@link TickScheduler#clearAllSchedules()}
+     */
+    private boolean dueDropped;
+
+    /**
+     * 上次tick开始时的时间，仅在实际时间模式中使用
+     */
+    private long lastWallClockNanos;
+
+    /**
+     * 实际时间模式中还不足一刻的时间
+     */
+    private long wallClockCarryNanos;
+
+    /**
+     * 推进一刻，并执行所有到期的任务
+     * <br>
+     * 在实际时间模式中，会按照距离上次调用经过的时间推进一刻或多刻
+     */
+    public void tick()
+    {
+        tickThread = Thread.currentThread();
+        currentTick += ticksToAdvance();
+
+        if (dropSchedules)
+            clearAllSchedules();
+
+        if (cancelSchedules) return;
+
+        //把其他线程提交的任务放进时间轮
+        ScheduleInfo pending;
+        while ((pending = pendingSchedules.poll()) != null)
+        {
+            if (!pending.isCanceled())
+                schedules.add(pending);
+        }
+
+        //移除在其他线程中取消的任务
+        ScheduleInfo canceled;
+        while ((canceled = canceledSchedules.poll()) != null)
+            schedules.remove(canceled);
+
+        onTickStarted();
+
+        //只处理这一刻到期的槽位
+        while (schedules.currentTick() < currentTick)
+            schedules.advance(dueConsumer);
+
+        var budget = getTickBudgetNanos();
+        tickStartNanos = System.nanoTime();
+        tasksRunThisTick = 0;
+        overBudget = false;
+
+        defaultCatchUpPolicy = getCatchUpPolicy();
+        catchUpLimit = getCatchUpTasksPerTick();
+        catchUpRunThisTick = 0;
+
+        dueDropped = false;
+
+        //按优先级从高到低执行，每个优先级中先执行上一刻剩下的任务
+        for (int lane = 0; lane < LANES; lane++)
+        {
+            var deferred = deferredSchedules[lane];
+            var deferredCount = deferred.size();
+
+            for (int i = 0; i < deferredCount; i++)
+            {
+                //Allows us to cancel half-way
+                if (cancelSchedules || dueDropped) break;
+
+                runDueSchedule(deferred.poll(), budget);
+            }
+
+            var due = dueSchedules[lane];
+            var dueCount = due.size();
+            var i = 0;
+
+            for (; i < dueCount; i++)
+            {
+                //Allows us to cancel half-way
+                if (cancelSchedules || dueDropped) break;
+
+                runDueSchedule(due.get(i), budget);
+            }
+
+            //中途暂停时，剩下的任务留到恢复后执行
+            for (; i < dueCount; i++)
+            {
+                var c = due.get(i);
+
+                if (dueDropped)
+                    c.drop();
+                else
+                    defer(c);
+            }
+
+            due.clear();
+        }
+
+        metrics.recordTick(System.nanoTime() - tickStartNanos, tasksRunThisTick,
+                schedules.size() + deferredCount());
+    }
+
+    private long ticksToAdvance()
+    {
+        if (!isWallClockMode())
+        {
+            lastWallClockNanos = 0;
+            return 1;
+        }
+
+        var now = System.nanoTime();
+        var last = lastWallClockNanos;
+        lastWallClockNanos = now;
+
+        if (last == 0) return 1;
+
+        var tickNanos = getTickNanos();
+        var elapsed = wallClockCarryNanos + (now - last);
+        var ticks = Math.max(1, elapsed / tickNanos);
+
+        //调用得比实际时间快时不累积欠下的时间
+        wallClockCarryNanos = Math.max(0, elapsed - ticks * tickNanos);
+
+        return ticks;
+    }
+
+    private CatchUpPolicy policyOf(ScheduleInfo c)
+    {
+        var policy = c.getCatchUpPolicy();
+        return policy == null ? defaultCatchUpPolicy : policy;
+    }
+
+    private void runDueSchedule(ScheduleInfo c, long budget)
+    {
+        if (c.isCanceled()) return;
+
+        //所在的任务组已被取消时，同时停止重复执行
+        var groupTask = c.groupTask;
+        if (groupTask != null && groupTask.generation.isCanceled())
+        {
+            c.cancel();
+            return;
+        }
+
+        var policy = policyOf(c);
+
+        while (true)
+        {
+            //过期的任务分散到之后的刻执行
+            if (policy == CatchUpPolicy.SPREAD && !c.async && c.deadline < currentTick)
+            {
+                if (catchUpRunThisTick >= catchUpLimit)
+                {
+                    defer(c);
+                    return;
+                }
+
+                catchUpRunThisTick++;
+            }
+
+            //超出预算后，低优先级和可以推迟的任务按顺序留到下一刻
+            if (budget > 0 && !c.async && isDeferrable(c))
+            {
+                if (!overBudget && System.nanoTime() - tickStartNanos >= budget)
+                    overBudget = true;
+
+                if (overBudget)
+                {
+                    defer(c);
+                    return;
+                }
+            }
+
+            tasksRunThisTick++;
+
+            if (c.async)
+            {
+                //异步执行时，回收的任务可能在此方法返回前就被其他线程放回回收池
+                var repeating = c.isRepeating();
+
+                dispatchAsync(c);
+
+                if (!repeating || c.isCanceled()) return;
+            }
+            else
+            {
+                runFunction(c);
+
+                if (!c.isRepeating() || c.isCanceled())
+                {
+                    if (c instanceof PostedSchedule posted) recycle(posted);
+                    return;
+                }
+            }
+
+            //执行期间清空了所有任务
+            if (dueDropped)
+            {
+                c.drop();
+                return;
+            }
+
+            //重复任务原地重新加入时间轮
+            c.deadline = nextDeadline(c, policy);
+
+            if (c.deadline > currentTick)
+            {
+                schedules.add(c);
+                return;
+            }
+
+            //仍然落后时继续补上错过的执行
+        }
+    }
+
+    private void dispatchAsync(ScheduleInfo c)
+    {
+        //每个任务只创建一次交给Executor的Runnable
+        var runner = c.asyncRunner;
+        if (runner == null)
+            runner = c.asyncRunner = () -> runAsyncSchedule(c);
+
+        c.dispatchedAt = System.nanoTime();
+        runAsync(runner);
+    }
+
+    private void runAsyncSchedule(ScheduleInfo c)
+    {
+        metrics.recordAsyncWait(System.nanoTime() - c.dispatchedAt);
+        runFunction(c);
+
+        if (c instanceof PostedSchedule posted) recycleFromOtherThread(posted);
+    }
+
+    private static boolean isDeferrable(ScheduleInfo c)
+    {
+        return switch (c.getPriority())
+        {
+            case HIGH -> false;
+            case NORMAL -> c.isDeferrable();
+            case LOW -> true;
+        };
+    }
+
+    private long nextDeadline(ScheduleInfo c, CatchUpPolicy policy)
+    {
+        var next = c.deadline + c.Period;
+
+        //跳过错过的执行，但保持原来的节奏
+        if (policy == CatchUpPolicy.SKIP_MISSED && next <= currentTick)
+            next += ((currentTick - next) / c.Period + 1) * c.Period;
+
+        return next;
+    }
+
+    /**
+     * 执行一个到期的任务，此方法可能在异步线程中调用
+     * <br>
+     * 覆写时应调用{@code super.runFunction(c)}来完成实际的执行
+     */
+    protected void runFunction(ScheduleInfo c)
+    {
+        this.executeFunction(c);
+    }
+
+    /**
+     * 执行任务并记录耗时，跳过暂停期间和所有者被熔断时的任务
+     */
+    final void executeFunction(ScheduleInfo c)
+    {
+        //所有者被熔断时跳过其任务
+        var breaker = c.breaker;
+
+        if (cancelSchedules || (breaker != null && breaker.isOpen(currentTick)))
+        {
+            //跳过的一次性任务不会再执行
+            if (!c.isRepeating()) releaseGroupTask(c);
+            return;
+        }
+
+        var detector = slowTaskDetector;
+        var thread = Thread.currentThread();
+        var sampled = detector != null && detector.isCapturingStacks() && thread == tickThread;
+
+        if (sampled) detector.taskStarted(thread);
+
+        var startedAt = System.nanoTime();
+
+        try
+        {
+            c.task.run();
+        }
+        catch (Throwable t)
+        {
+            this.onTaskExceptionCaught(t, c.snapshot());
+        }
+        finally
+        {
+            var duration = System.nanoTime() - startedAt;
+
+            if (sampled) detector.taskFinished();
+
+            var groupTask = c.groupTask;
+            var taskClass = groupTask != null ? groupTask.taskClass : c.task.getClass();
+
+            metrics.recordTask(taskClass, duration);
+
+            if (detector != null && duration >= detector.getThresholdNanos())
+                detector.record(c, taskClass, duration, currentTick, sampled);
+        }
+    }
+
+    /**
+     * 让任务组不再引用一个不会再执行的任务
+     */
+    private static void releaseGroupTask(ScheduleInfo c)
+    {
+        var groupTask = c.groupTask;
+        if (groupTask != null)
+            groupTask.generation.release(groupTask);
+    }
+
+    void onScheduleCanceled(ScheduleInfo si)
+    {
+        if (Thread.currentThread() == tickThread)
+            schedules.remove(si);
+        else
+            canceledSchedules.offer(si);
+    }
+
+    //endregion tick相关
+
+    //region 回收池
+
+    private static final int MAX_POOLED_SCHEDULES = 4096;
+
+    /**
+     * 可以复用的任务，只在tick线程中访问
+     */
+    private PostedSchedule freeSchedules;
+
+    private int freeScheduleCount;
+
+    /**
+     * 在其他线程中执行完毕的任务，由tick线程整体取走
+     */
+    private final AtomicReference<PostedSchedule> returnedSchedules = new AtomicReference<>();
+
+    private final AtomicInteger returnedScheduleCount = new AtomicInteger();
+
+    private PostedSchedule acquire()
+    {
+        var info = freeSchedules;
+
+        if (info == null)
+        {
+            //只在本地的回收池用完时才取走其他线程放回的任务
+            info = returnedSchedules.getAndSet(null);
+            freeScheduleCount += returnedScheduleCount.getAndSet(0);
+        }
+
+        if (info == null)
+            return new PostedSchedule();
+
+        freeSchedules = info.nextFree;
+        freeScheduleCount = Math.max(0, freeScheduleCount - 1);
+
+        return info;
+    }
+
+    private void recycle(PostedSchedule info)
+    {
+        if (freeScheduleCount >= MAX_POOLED_SCHEDULES) return;
+
+        info.release();
+        info.nextFree = freeSchedules;
+
+        freeSchedules = info;
+        freeScheduleCount++;
+    }
+
+    private void recycleFromOtherThread(PostedSchedule info)
+    {
+        if (returnedScheduleCount.get() >= MAX_POOLED_SCHEDULES) return;
+
+        info.release();
+
+        //只有tick线程会取走整个链表，因此这里的入栈不会受到ABA问题影响
+        PostedSchedule head;
+        do
+        {
+            head = returnedSchedules.get();
+            info.nextFree = head;
+        }
+        while (!returnedSchedules.compareAndSet(head, info));
+
+        returnedScheduleCount.incrementAndGet();
+    }
+
+    //endregion 回收池
+
+    //region 计划任务
+
+    public ScheduleInfo schedule(Runnable runnable)
+    {
+        return this.schedule(runnable, 1);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay)
+    {
+        return this.schedule(function, delay, false);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async)
+    {
+        return this.schedule(function, delay, async, (TaskGroup) null);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay, TaskPriority priority)
+    {
+        return this.schedule(function, delay, false, priority, null);
+    }
+
+    /**
+     * 计划一个属于某个任务组的任务，{@link TaskGroup#cancelAll()}会将其一并取消
+     */
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskGroup group)
+    {
+        return this.schedule(function, delay, async, TaskPriority.NORMAL, group);
+    }
+
+    /**
+     * 计划一个任务
+     *
+     * @param priority 同一刻到期的任务中，优先级高的会先执行
+     * @param group 任务所属的任务组，可以为null
+     */
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskPriority priority, TaskGroup group)
+    {
+        var groupTask = group == null ? null : group.wrap(function, false);
+        var si = new ScheduleInfo(groupTask == null ? function : groupTask, delay, currentTick, async);
+
+        return this.submit(si.setPriority(priority), group, groupTask);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period)
+    {
+        return this.scheduleRepeating(function, initialDelay, period, false);
+    }
+
+    /**
+     * 计划一个重复执行的任务
+     * <br>
+     * 同一个{@link ScheduleInfo}会在每次执行后重新加入计划，调用{@link ScheduleInfo#cancel()}即可停止之后的所有执行
+     *
+     * @param initialDelay 第一次执行前的延迟
+     * @param period 之后每次执行的间隔，必须大于0
+     */
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async)
+    {
+        return this.scheduleRepeating(function, initialDelay, period, async, (TaskGroup) null);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async, TaskGroup group)
+    {
+        return this.scheduleRepeating(function, initialDelay, period, async, TaskPriority.NORMAL, group);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async, TaskPriority priority, TaskGroup group)
+    {
+        if (period <= 0)
+            throw new IllegalArgumentException("Period must be greater than 0");
+
+        var groupTask = group == null ? null : group.wrap(function, true);
+        var si = new ScheduleInfo(groupTask == null ? function : groupTask, initialDelay, period, currentTick, async);
+
+        return this.submit(si.setPriority(priority), group, groupTask);
+    }
+
+    private ScheduleInfo submit(ScheduleInfo si, TaskGroup group, TaskGroup.GroupTask groupTask)
+    {
+        si.groupTask = groupTask;
+
+        if (!acceptSchedules)
+        {
+            si.cancel();
+            return si;
+        }
+
+        si.scheduler = this;
+        si.breaker = group == null ? null : group.getCircuitBreaker();
+
+        enqueue(si);
+
+        return si;
+    }
+
+    private void enqueue(ScheduleInfo si)
+    {
+        //在tick线程中提交的任务直接放进时间轮，其他线程提交的任务等到下一刻开始时再取出
+        if (Thread.currentThread() == tickThread)
+            schedules.add(si);
+        else
+            pendingSchedules.offer(si);
+    }
+
+    public boolean post(Runnable function, int delay)
+    {
+        return this.post(function, delay, false);
+    }
+
+    /**
+     * 计划一个不需要取消的一次性任务
+     * <br>
+     * 不会返回{@link ScheduleInfo}，在tick线程中调用时会复用已经执行完毕的任务，不产生额外的对象
+     *
+     * @return 任务是否被接受
+     */
+    public boolean post(Runnable function, int delay, boolean async)
+    {
+        if (!acceptSchedules) return false;
+
+        ScheduleInfo si;
+
+        if (Thread.currentThread() == tickThread)
+        {
+            var posted = acquire();
+            posted.reuse(function, delay, currentTick, async);
+
+            si = posted;
+        }
+        else
+        {
+            si = new ScheduleInfo(function, delay, currentTick, async);
+        }
+
+        si.scheduler = this;
+        enqueue(si);
+
+        return true;
+    }
+
+    //endregion 计划任务
+
+    //region 分批处理
+
+    /**
+     * 在之后的每一刻中处理最多itemsPerTick个元素
+     */
+    public <T> IncrementalTask<T> scheduleForEach(Iterable<T> iterable, Consumer<T> consumer, int itemsPerTick)
+    {
+        if (itemsPerTick <= 0)
+            throw new IllegalArgumentException("Items per tick must be greater than 0");
+
+        var task = new IncrementalTask<>(iterable, consumer, itemsPerTick, 0);
+        task.start(this);
+
+        return task;
+    }
+
+    /**
+     * 在之后的每一刻中处理元素，直到用完nanosPerTick纳秒的预算
+     */
+    public <T> IncrementalTask<T> scheduleForEachTimed(Iterable<T> iterable, Consumer<T> consumer, long nanosPerTick)
+    {
+        if (nanosPerTick <= 0)
+            throw new IllegalArgumentException("Nanos per tick must be greater than 0");
+
+        var task = new IncrementalTask<>(iterable, consumer, 0, nanosPerTick);
+        task.start(this);
+
+        return task;
+    }
+
+    //endregion 分批处理
+
+    //region 合并任务
+
+    private final Map<Object, CoalescedTask> coalescedTasks = new ConcurrentHashMap<>();
+
+    private final class CoalescedTask implements Runnable
+    {
+        private final Object key;
+
+        private volatile Runnable latest;
+
+        private ScheduleInfo scheduleInfo;
+
+        private CoalescedTask(Object key, Runnable function)
+        {
+            this.key = key;
+            this.latest = function;
+        }
+
+        @Override
+        public void run()
+        {
+            //先移除，让执行期间提交的任务进入新的计划
+            if (coalescedTasks.remove(key, this))
+                latest.run();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "合并任务[" + key + "]（" + latest + "）";
+        }
+    }
+
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay)
+    {
+        return this.scheduleCoalesced(key, function, delay, CoalescePolicy.KEEP_DEADLINE);
+    }
+
+    /**
+     * 计划一个按键合并的任务，同一个键最多只会有一个等待中的任务
+     *
+     * @param key 用于合并的键，需要正确实现equals和hashCode
+     * @param policy 该键已有等待中的任务时如何处理
+     * @return 该键当前等待中的任务
+     */
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay, CoalescePolicy policy)
+    {
+        var task = coalescedTasks.compute(key, (k, existing) ->
+        {
+            if (existing != null && !existing.scheduleInfo.isCanceled())
+            {
+                if (policy == CoalescePolicy.KEEP_DEADLINE)
+                {
+                    existing.latest = function;
+                    return existing;
+                }
+
+                existing.scheduleInfo.cancel();
+            }
+
+            var newTask = new CoalescedTask(k, function);
+            newTask.scheduleInfo = this.schedule(newTask, delay);
+
+            return newTask;
+        });
+
+        return task.scheduleInfo;
+    }
+
+    //endregion 合并任务
+
+    private final Executor mainThreadExecutor = r ->
+    {
+        if (!this.post(r, 1))
+            throw new RejectedExecutionException("Scheduler is not accepting schedules");
+    };
+
+    /**
+     * @return 会在下一刻的tick中执行任务的Executor
+     */
+    public Executor getMainThreadExecutor()
+    {
+        return mainThreadExecutor;
+    }
+}
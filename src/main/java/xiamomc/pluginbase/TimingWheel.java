@@ -0,0 +1,204 @@
+package xiamomc.pluginbase;
+
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮，用于存放等待执行的{@link ScheduleInfo}
+ * <br>
+ * 每层有64个槽位，共6层，足以覆盖int范围内的任意延迟。
+ * 每次推进只会访问当前到期的槽位，以及在低位进位时需要降级的高层槽位。
+ *
+ * @apiNote 此类不是线程安全的，调用方需要保证所有访问都在同一线程或同一把锁下进行
+ */
+final class TimingWheel
+{
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+
+    /**
+     * 不在时间轮中的任务所使用的槽位编号
+     */
+    static final int NO_BUCKET = -1;
+
+    private final ScheduleInfo[] heads = new ScheduleInfo[LEVELS * SLOTS];
+    private final ScheduleInfo[] tails = new ScheduleInfo[LEVELS * SLOTS];
+
+    /**
+     * 已经推进到的刻
+     */
+    private long currentTick;
+
+    private int size;
+
+    TimingWheel(long startTick)
+    {
+        this.currentTick = startTick;
+    }
+
+    public long currentTick()
+    {
+        return currentTick;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * 将任务按照其{@link ScheduleInfo#deadline}放入对应的槽位
+     * <br>
+     * 已经过期的任务会被放到下一刻执行
+     */
+    public void add(ScheduleInfo info)
+    {
+        if (info.bucket != NO_BUCKET)
+            throw new IllegalStateException(info + " is already scheduled");
+
+        if (info.deadline <= currentTick)
+            info.deadline = currentTick + 1;
+
+        link(info);
+        size++;
+    }
+
+    /**
+     * 将任务从所在的槽位中移除
+     *
+     * @return 任务是否在时间轮中
+     */
+    public boolean remove(ScheduleInfo info)
+    {
+        var bucket = info.bucket;
+        if (bucket == NO_BUCKET) return false;
+
+        var prev = info.prev;
+        var next = info.next;
+
+        if (prev == null)
+            heads[bucket] = next;
+        else
+            prev.next = next;
+
+        if (next == null)
+            tails[bucket] = prev;
+        else
+            next.prev = prev;
+
+        info.prev = null;
+        info.next = null;
+        info.bucket = NO_BUCKET;
+
+        size--;
+        return true;
+    }
+
+    /**
+     * 推进一刻，并将所有到期的任务按照加入顺序交给consumer
+     */
+    public void advance(Consumer<ScheduleInfo> consumer)
+    {
+        var tick = ++currentTick;
+
+        //从高到低处理进位，把高层的任务降级到低层
+        for (int level = LEVELS - 1; level >= 1; level--)
+        {
+            var shift = level * SLOT_BITS;
+
+            if ((tick & ((1L << shift) - 1)) != 0) continue;
+
+            var info = detach(level * SLOTS + (int) ((tick >>> shift) & SLOT_MASK));
+
+            while (info != null)
+            {
+                var next = unlinkDetached(info);
+
+                link(info);
+                info = next;
+            }
+        }
+
+        var info = detach((int) (tick & SLOT_MASK));
+
+        while (info != null)
+        {
+            var next = unlinkDetached(info);
+
+            size--;
+            consumer.accept(info);
+
+            info = next;
+        }
+    }
+
+    /**
+     * 移除所有任务，并将它们交给consumer
+     */
+    public void clear(Consumer<ScheduleInfo> consumer)
+    {
+        for (int bucket = 0; bucket < heads.length; bucket++)
+        {
+            var info = detach(bucket);
+
+            while (info != null)
+            {
+                var next = unlinkDetached(info);
+
+                consumer.accept(info);
+                info = next;
+            }
+        }
+
+        size = 0;
+    }
+
+    private void link(ScheduleInfo info)
+    {
+        var deadline = info.deadline;
+
+        //最高的不同位决定该放在哪一层
+        var level = (63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / SLOT_BITS;
+        if (level >= LEVELS) level = LEVELS - 1;
+
+        var bucket = level * SLOTS + (int) ((deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+
+        var tail = tails[bucket];
+
+        if (tail == null)
+            heads[bucket] = info;
+        else
+            tail.next = info;
+
+        info.prev = tail;
+        info.bucket = bucket;
+        tails[bucket] = info;
+    }
+
+    private ScheduleInfo detach(int bucket)
+    {
+        var head = heads[bucket];
+
+        heads[bucket] = null;
+        tails[bucket] = null;
+
+        return head;
+    }
+
+    /**
+     * 清除一个已从槽位中取出的任务的链接
+     *
+     * @return 原来的下一个任务
+     */
+    private static ScheduleInfo unlinkDetached(ScheduleInfo info)
+    {
+        var next = info.next;
+
+        info.prev = null;
+        info.next = null;
+        info.bucket = NO_BUCKET;
+
+        return next;
+    }
+}
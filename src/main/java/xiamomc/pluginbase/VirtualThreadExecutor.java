@@ -0,0 +1,99 @@
+package xiamomc.pluginbase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为每个任务创建一个虚拟线程的Executor，并通过信号量限制同时运行的任务数量
+ * <br>
+ * 适合文件读写、JSON解析这类会阻塞的异步任务，等待许可的任务只会挂起自己的虚拟线程
+ */
+public class VirtualThreadExecutor implements Executor
+{
+    private final ExecutorService backend;
+
+    private final Semaphore permits;
+
+    private final int concurrencyLimit;
+
+    /**
+     * @param threadNamePrefix 虚拟线程的名称前缀
+     * @param concurrencyLimit 最多同时运行多少个任务
+     */
+    public VirtualThreadExecutor(String threadNamePrefix, int concurrencyLimit)
+    {
+        if (concurrencyLimit <= 0)
+            throw new IllegalArgumentException("Concurrency limit must be greater than 0");
+
+        this.concurrencyLimit = concurrencyLimit;
+        this.permits = new Semaphore(concurrencyLimit);
+        this.backend = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    public int getConcurrencyLimit()
+    {
+        return concurrencyLimit;
+    }
+
+    /**
+     * @return 当前正在运行的任务数量
+     */
+    public int getRunningCount()
+    {
+        return concurrencyLimit - permits.availablePermits();
+    }
+
+    @Override
+    public void execute(Runnable runnable)
+    {
+        backend.execute(() ->
+        {
+            try
+            {
+                permits.acquire();
+            }
+            catch (InterruptedException e)
+            {
+                //执行器已经关闭
+                return;
+            }
+
+            try
+            {
+                runnable.run();
+            }
+            finally
+            {
+                permits.release();
+            }
+        });
+    }
+
+    public boolean isShutdown()
+    {
+        return backend.isShutdown();
+    }
+
+    /**
+     * 停止接受新的任务，并等待已经提交的任务完成
+     *
+     * @return 是否所有任务都在超时前完成
+     */
+    public boolean shutdown(long timeout, TimeUnit unit)
+    {
+        backend.shutdown();
+
+        try
+        {
+            return backend.awaitTermination(timeout, unit);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,17 +1,16 @@
 package xiamomc.pluginbase;
 
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.slf4j.Logger;
 import xiamomc.pluginbase.Managers.DependencyContainer;
 import xiamomc.pluginbase.Utilities.PluginSoftDependManager;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulablePlugin
@@ -63,21 +62,166 @@ public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulable
         //先反注册一遍所有依赖再注册插件
         dependencyContainer.unCacheAll();
 
-        processExceptionCount();
-
         dependencyContainer.cacheAs(XiaMoJavaPlugin.class, this);
 
         //endregion
 
-        this.cancelSchedules = false;
-        this.acceptSchedules = true;
+        scheduler.setCancelSchedules(false);
+        scheduler.setAcceptSchedules(true);
+
+        resetAsyncExecutor();
+
+        pluginBreaker = new CircuitBreaker(getNamespace(), getExceptionLimit(), getExceptionWindowTicks(), 0);
+
+        var slowTaskThreshold = getSlowTaskThresholdMillis();
+        if (slowTaskThreshold > 0)
+        {
+            scheduler.setSlowTaskDetector(new SlowTaskDetector(slowTaskThreshold, TimeUnit.MILLISECONDS,
+                    getSlowTaskRecordCapacity(), isSlowTaskStackCaptureEnabled()));
+        }
 
         this.enable();
         startMainLoop(this::tick);
     }
 
     public abstract void startMainLoop(Runnable r);
-    public abstract void runAsync(Runnable r);
+
+    /**
+     * 异步执行一个任务
+     * <br>
+     * 默认使用{@link VirtualThreadExecutor}，子类可以覆写此方法来使用其他线程池
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 插件已经停用
+     */
+    public void runAsync(Runnable r)
+    {
+        getAsyncExecutor().execute(r);
+    }
+
+    //region 异步执行
+
+    private VirtualThreadExecutor asyncExecutor;
+
+    /**
+     * 获取默认异步执行器最多可以同时运行多少个任务
+     */
+    protected int getAsyncConcurrencyLimit()
+    {
+        return Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * 获取停用插件时等待异步任务完成的最长时间
+     */
+    protected long getAsyncShutdownTimeoutMillis()
+    {
+        return 5000;
+    }
+
+    /**
+     * 获取默认的异步执行器
+     * <br>
+     * 插件停用后会返回已经关闭的执行器，向其提交任务会抛出{@link java.util.concurrent.RejectedExecutionException}，直到插件再次启用
+     */
+    protected synchronized VirtualThreadExecutor getAsyncExecutor()
+    {
+        if (asyncExecutor == null)
+            asyncExecutor = new VirtualThreadExecutor(getNamespace() + "-async-", getAsyncConcurrencyLimit());
+
+        return asyncExecutor;
+    }
+
+    private synchronized void shutdownAsyncExecutor()
+    {
+        if (asyncExecutor == null) return;
+
+        //保留已关闭的执行器，停用后提交的任务会被拒绝，而不是创建一个不会再被关闭的执行器
+        if (!asyncExecutor.shutdown(getAsyncShutdownTimeoutMillis(), TimeUnit.MILLISECONDS))
+            logger.warn("Some async tasks did not finish before the plugin was disabled.");
+    }
+
+    /**
+     * 再次启用时丢弃上次停用时关闭的执行器
+     */
+    private synchronized void resetAsyncExecutor()
+    {
+        if (asyncExecutor != null && asyncExecutor.isShutdown())
+        {
+            asyncExecutor = null;
+
+            //停用期间被拒绝的有序任务可能让某个键无法继续执行，一并重新创建
+            orderedExecutor = null;
+        }
+    }
+
+    private AsyncTimer asyncTimer;
+
+    protected synchronized AsyncTimer getAsyncTimer()
+    {
+        if (asyncTimer == null)
+        {
+            asyncTimer = new AsyncTimer(getNamespace() + "-timer", this::runAsync,
+                    t -> logger.warn("Uncaught exception in async timer task", t));
+        }
+
+        return asyncTimer;
+    }
+
+    private synchronized void shutdownAsyncTimer()
+    {
+        if (asyncTimer == null) return;
+
+        asyncTimer.shutdown();
+        asyncTimer = null;
+    }
+
+    /**
+     * 在delay之后异步执行一个任务，计时不依赖tick
+     */
+    @Override
+    public AsyncTimer.Timeout runAsyncLater(Runnable runnable, Duration delay)
+    {
+        return getAsyncTimer().schedule(runnable, delay);
+    }
+
+    /**
+     * 在initialDelay之后异步执行一个任务，之后每隔period执行一次，计时不依赖tick
+     */
+    @Override
+    public AsyncTimer.Timeout runAsyncRepeating(Runnable runnable, Duration initialDelay, Duration period)
+    {
+        return getAsyncTimer().scheduleRepeating(runnable, initialDelay, period);
+    }
+
+    private OrderedExecutor orderedExecutor;
+
+    protected synchronized OrderedExecutor getOrderedExecutor()
+    {
+        if (orderedExecutor == null)
+        {
+            orderedExecutor = new OrderedExecutor(this::runAsync,
+                    t -> logger.warn("Uncaught exception in ordered async task", t));
+        }
+
+        return orderedExecutor;
+    }
+
+    /**
+     * 异步执行一个任务，同一个键的任务会按提交顺序逐个执行，不同键的任务可以并行执行
+     */
+    @Override
+    public void runAsyncOrdered(Object key, Runnable runnable)
+    {
+        getOrderedExecutor().execute(key, runnable);
+    }
+
+    //endregion 异步执行
+
+    @Override
+    public Executor getMainThreadExecutor()
+    {
+        return scheduler.getMainThreadExecutor();
+    }
 
     protected void disable()
     {
@@ -90,8 +234,23 @@ public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulable
         disable();
 
         //禁止tick
-        this.cancelSchedules = true;
-        this.acceptSchedules = false;
+        scheduler.setCancelSchedules(true);
+        scheduler.setAcceptSchedules(false);
+
+        //之后不会再有tick来处理dropAllSchedules，在这里直接清空，以免再次启用时影响新计划的任务
+        scheduler.clearAllSchedules();
+
+        shutdownAsyncTimer();
+        shutdownAsyncExecutor();
+
+        deferredInjections.clear();
+
+        var slowTaskDetector = scheduler.getSlowTaskDetector();
+        if (slowTaskDetector != null)
+        {
+            slowTaskDetector.shutdown();
+            scheduler.setSlowTaskDetector(null);
+        }
 
         //反注册依赖
         dependencyContainer.unCacheAll();
@@ -101,82 +260,179 @@ public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulable
 
     //region tick相关
 
-    protected long currentTick = 0;
-
-    protected void tick()
+    /**
+     * 负责此插件所有计划任务的调度器
+     */
+    protected final TickScheduler scheduler = new TickScheduler()
     {
-        currentTick += 1;
+        @Override
+        protected void runAsync(Runnable runnable)
+        {
+            XiaMoJavaPlugin.this.runAsync(runnable);
+        }
 
-        if (cancelSchedules) return;
+        @Override
+        protected void runFunction(ScheduleInfo c)
+        {
+            XiaMoJavaPlugin.this.runFunction(c);
+        }
 
-        List<ScheduleInfo> schedulesTemp;
+        @Override
+        protected void onTaskExceptionCaught(Throwable exception, ScheduleInfo scheduleInfo)
+        {
+            XiaMoJavaPlugin.this.onTaskExceptionCaught(exception, scheduleInfo);
+        }
 
-        synchronized (schedules)
+        @Override
+        protected long getTickBudgetNanos()
         {
-            //logger.info(":: Schedule %s runnables...".formatted(this.schedules.size()));
-            schedulesTemp = new ObjectArrayList<>(this.schedules.size());
-            schedulesTemp.addAll(this.schedules);
+            return XiaMoJavaPlugin.this.getTickBudgetNanos();
         }
 
-        List<ScheduleInfo> toRemove = new ObjectArrayList<>();
+        @Override
+        protected CatchUpPolicy getCatchUpPolicy()
+        {
+            return XiaMoJavaPlugin.this.getCatchUpPolicy();
+        }
 
-        schedulesTemp.forEach(c ->
+        @Override
+        protected int getCatchUpTasksPerTick()
         {
-            if (c == null)
-            {
-                if (doInternalDebugOutput)
-                    logger.warn("Trying to execute a NULL ScheduleInfo?! This shouldn't happen!");
+            return XiaMoJavaPlugin.this.getCatchUpTasksPerTick();
+        }
 
-                return;
-            }
+        @Override
+        protected boolean isWallClockMode()
+        {
+            return XiaMoJavaPlugin.this.isWallClockMode();
+        }
 
-            if (c.isCanceled())
-            {
-                toRemove.add(c);
-                return;
-            }
+        @Override
+        protected void onTickStarted()
+        {
+            //在所有任务之前完成注入，让这一刻的任务都能看到已经注入的字段
+            deferredInjections.drain();
+        }
+    };
 
-            if (currentTick - c.TickScheduled >= c.Delay)
-            {
-                toRemove.add(c);
+    /**
+     * @return 此插件计划任务的运行统计
+     */
+    public SchedulerMetrics getSchedulerMetrics()
+    {
+        return scheduler.getMetrics();
+    }
 
-                //Allows us to cancel half-way
-                if (cancelSchedules) return;
+    /**
+     * @return 记录此插件中缓慢任务的检测器，未启用时为null
+     */
+    public SlowTaskDetector getSlowTaskDetector()
+    {
+        return scheduler.getSlowTaskDetector();
+    }
 
-                //logger.info("执行：" + c + "，当前TICK：" + currentTick);\
-                if (c.isAsync)
-                    runAsync(() -> runFunction(c));
-                else
-                    runFunction(c);
-            }
-        });
+    /**
+     * 获取计划任务耗时超过多少毫秒时记录下来
+     * <br>
+     * 默认不检测，需要时覆写此方法并返回大于0的值
+     *
+     * @return 阈值，小于等于0则不检测
+     */
+    protected long getSlowTaskThresholdMillis()
+    {
+        return 0;
+    }
 
-        if (!toRemove.isEmpty())
-        {
-            synchronized (this.schedules)
-            {
-                this.schedules.removeAll(toRemove);
-            }
-        }
+    /**
+     * 获取最多保存多少条缓慢任务的记录
+     */
+    protected int getSlowTaskRecordCapacity()
+    {
+        return 64;
+    }
+
+    /**
+     * 是否在任务超时期间采样主线程的调用栈
+     */
+    protected boolean isSlowTaskStackCaptureEnabled()
+    {
+        return false;
+    }
 
-        schedulesTemp.clear();
-        //logger.info(":: End Schedule, toRemove is %s, final list %s, temp remaining %s".formatted(toRemove.size(), this.schedules.size(), schedulesTemp.size()));
+    protected void tick()
+    {
+        scheduler.tick();
     }
 
+    /**
+     * 执行一个到期的计划任务，此方法可能在异步线程中调用
+     * <br>
+     * 保留此方法以兼容覆写了它的子类，覆写时应调用super来完成实际的执行
+     *
+     * @deprecated 调度逻辑已移至{@link TickScheduler}，此方法只是转发
+     */
+    @Deprecated
     protected void runFunction(ScheduleInfo c)
     {
-        if (cancelSchedules) return;
+        scheduler.executeFunction(c);
+    }
 
-        try
-        {
-            c.Function.run();
-        }
-        catch (Throwable t)
-        {
-            this.onTaskExceptionCaught(t, c);
-        }
+    /**
+     * 此插件的调度器所使用的{@link TickScheduler#getTickBudgetNanos()}
+     */
+    protected long getTickBudgetNanos()
+    {
+        return 0;
     }
 
+    /**
+     * 此插件的调度器所使用的{@link TickScheduler#getCatchUpPolicy()}
+     */
+    protected CatchUpPolicy getCatchUpPolicy()
+    {
+        return CatchUpPolicy.SKIP_MISSED;
+    }
+
+    /**
+     * 此插件的调度器所使用的{@link TickScheduler#getCatchUpTasksPerTick()}
+     */
+    protected int getCatchUpTasksPerTick()
+    {
+        return 16;
+    }
+
+    /**
+     * 此插件的调度器所使用的{@link TickScheduler#isWallClockMode()}
+     */
+    protected boolean isWallClockMode()
+    {
+        return false;
+    }
+
+    //region 依赖注入
+
+    /**
+     * 所有{@link PluginObject}共用的延迟注入队列
+     */
+    private final DeferredInjectionQueue deferredInjections = new DeferredInjectionQueue(this);
+
+    DeferredInjectionQueue getDeferredInjectionQueue()
+    {
+        return deferredInjections;
+    }
+
+    /**
+     * 当某个{@link PluginObject}在创建后的下一刻解析依赖或执行初始化方法失败时调用
+     * <br>
+     * 每个失败的对象都会单独调用一次，不影响同一刻中的其他对象
+     */
+    protected void onDeferredInjectionFailed(PluginObject<?> object, Throwable exception)
+    {
+        logger.error("Failed to resolve dependencies for " + object, exception);
+    }
+
+    //endregion 依赖注入
+
     //region tick异常捕捉与处理
 
     protected int getExceptionLimit()
@@ -185,55 +441,88 @@ public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulable
         return 5;
     }
 
-    //已经捕获的异常
-    private final AtomicInteger exceptionCaught = new AtomicInteger(0);
+    /**
+     * 获取统计异常数量的滑动窗口长度
+     */
+    protected int getExceptionWindowTicks()
+    {
+        return 5;
+    }
 
     /**
-     * Should we cancel executing schedules?
+     * 获取某个{@link PluginObject}类的任务因异常过多而被熔断后，需要隔离多久
      */
-    protected boolean cancelSchedules = false;
+    protected int getQuarantineTicks()
+    {
+        return 1200;
+    }
 
     /**
-     * Should we accept any further {@link XiaMoJavaPlugin#schedule} calls?
+     * 不属于任何{@link PluginObject}的任务所使用的熔断器，熔断后将停用插件
      */
-    protected boolean acceptSchedules = true;
+    private CircuitBreaker pluginBreaker;
+
+    /**
+     * 每个{@link PluginObject}类共用的熔断器
+     * <br>
+     * 按类而不是按对象统计异常：同一个类的大量短暂存在的对象（例如每个玩家一个）各自的异常次数都不会达到上限，
+     * 按类统计才能在这种情况下熔断，也不需要为每个对象分配一个滑动窗口
+     */
+    private final Map<Class<?>, CircuitBreaker> objectBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * @return 某个{@link PluginObject}类的所有对象共用的熔断器
+     */
+    CircuitBreaker getCircuitBreaker(Class<?> type)
+    {
+        var breaker = objectBreakers.get(type);
+        if (breaker != null) return breaker;
+
+        return objectBreakers.computeIfAbsent(type, t ->
+                new CircuitBreaker(t.getName(), getExceptionLimit(), getExceptionWindowTicks(), getQuarantineTicks()));
+    }
 
     @Override
     public boolean acceptSchedules()
     {
-        return acceptSchedules;
+        return scheduler.acceptSchedules();
     }
 
     protected void onTaskExceptionCaught(Throwable exception, ScheduleInfo scheduleInfo)
     {
         if (exception == null) return;
 
-        int exceptions = exceptionCaught.incrementAndGet();
-
         logger.warn("Uncaught exception when processing " + scheduleInfo, exception);
 
-        if (exceptions >= getExceptionLimit())
+        var tick = getCurrentTick();
+
+        //属于某个PluginObject的任务只熔断该对象
+        var breaker = scheduleInfo.breaker;
+        if (breaker != null)
         {
-            logger.error("Exceptions reached the limit! Trying to shut down plugin...");
+            if (breaker.recordFailure(tick))
+            {
+                logger.error("Exceptions from %s reached the limit! Its schedules will be skipped for %s ticks."
+                        .formatted(breaker.getOwnerName(), getQuarantineTicks()));
+            }
 
-            this.schedules.clear();
-            Bukkit.getPluginManager().disablePlugin(this);
+            return;
         }
-    }
 
-    private void processExceptionCount()
-    {
-        exceptionCaught.decrementAndGet();
+        if (pluginBreaker != null && pluginBreaker.recordFailure(tick))
+        {
+            logger.error("Exceptions reached the limit! Trying to shut down plugin...");
+
+            scheduler.dropAllSchedules();
 
-        this.schedule(this::processExceptionCount, 5);
+            Bukkit.getPluginManager().disablePlugin(this);
+        }
     }
 
     //endregion tick异常捕捉与处理
 
     //endregion tick相关
 
-    protected final List<ScheduleInfo> schedules = Collections.synchronizedList(new ObjectArrayList<>());
-
     @Deprecated
     public ScheduleInfo schedule(Consumer<?> consumer)
     {
@@ -254,35 +543,91 @@ public abstract class XiaMoJavaPlugin extends JavaPlugin implements ISchedulable
 
     public ScheduleInfo schedule(Runnable runnable)
     {
-        return this.schedule(runnable, 1);
+        return scheduler.schedule(runnable);
     }
 
     public ScheduleInfo schedule(Runnable function, int delay)
     {
-        return this.schedule(function, delay, false);
+        return scheduler.schedule(function, delay);
     }
 
     public ScheduleInfo schedule(Runnable function, int delay, boolean async)
     {
-        var si = new ScheduleInfo(function, delay, currentTick, async);
+        return scheduler.schedule(function, delay, async);
+    }
 
-        if (!acceptSchedules)
-        {
-            si.cancel();
-            return si;
-        }
+    public boolean post(Runnable function, int delay)
+    {
+        return scheduler.post(function, delay);
+    }
 
-        synchronized (schedules)
-        {
-            //Logger.info("添加：" + si + "，当前TICK：" + currentTick);
-            schedules.add(si);
-        }
+    public boolean post(Runnable function, int delay, boolean async)
+    {
+        return scheduler.post(function, delay, async);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay, TaskPriority priority)
+    {
+        return scheduler.schedule(function, delay, priority);
+    }
 
-        return si;
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskPriority priority)
+    {
+        return scheduler.schedule(function, delay, async, priority, null);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period)
+    {
+        return scheduler.scheduleRepeating(function, initialDelay, period);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async)
+    {
+        return scheduler.scheduleRepeating(function, initialDelay, period, async);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskGroup group)
+    {
+        return scheduler.schedule(function, delay, async, group);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async, TaskGroup group)
+    {
+        return scheduler.scheduleRepeating(function, initialDelay, period, async, group);
+    }
+
+    public ScheduleInfo schedule(Runnable function, int delay, boolean async, TaskPriority priority, TaskGroup group)
+    {
+        return scheduler.schedule(function, delay, async, priority, group);
+    }
+
+    public ScheduleInfo scheduleRepeating(Runnable function, int initialDelay, int period, boolean async, TaskPriority priority, TaskGroup group)
+    {
+        return scheduler.scheduleRepeating(function, initialDelay, period, async, priority, group);
+    }
+
+    public <T> IncrementalTask<T> scheduleForEach(Iterable<T> iterable, Consumer<T> consumer, int itemsPerTick)
+    {
+        return scheduler.scheduleForEach(iterable, consumer, itemsPerTick);
+    }
+
+    public <T> IncrementalTask<T> scheduleForEachTimed(Iterable<T> iterable, Consumer<T> consumer, long nanosPerTick)
+    {
+        return scheduler.scheduleForEachTimed(iterable, consumer, nanosPerTick);
+    }
+
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay)
+    {
+        return scheduler.scheduleCoalesced(key, function, delay);
+    }
+
+    public ScheduleInfo scheduleCoalesced(Object key, Runnable function, int delay, CoalescePolicy policy)
+    {
+        return scheduler.scheduleCoalesced(key, function, delay, policy);
     }
 
     public long getCurrentTick()
     {
-        return currentTick;
+        return scheduler.getCurrentTick();
     }
-}
\ No newline at end of file
+}
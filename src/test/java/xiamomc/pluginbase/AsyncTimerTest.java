@@ -0,0 +1,217 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncTimerTest
+{
+    private static final AtomicInteger timerCount = new AtomicInteger();
+
+    private final String threadName = "async-timer-test-" + timerCount.incrementAndGet();
+
+    private final AtomicReference<Throwable> exception = new AtomicReference<>();
+
+    //直接在计时线程中执行，方便观察执行的顺序
+    private final AsyncTimer timer = new AsyncTimer(threadName, Runnable::run, exception::set);
+
+    @AfterEach
+    public void tearDown()
+    {
+        timer.shutdown();
+        assertNull(exception.get());
+    }
+
+    private Thread findWorker()
+    {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals(threadName))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) throws InterruptedException
+    {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (thread.getState() != state)
+        {
+            assertTrue(System.nanoTime() < deadline, "Timer thread is " + thread.getState() + " instead of " + state);
+            Thread.sleep(1);
+        }
+    }
+
+    //region 到期
+
+    @Test
+    public void runsInDeadlineOrder() throws Exception
+    {
+        var order = new CopyOnWriteArrayList<Integer>();
+        var latch = new CountDownLatch(3);
+
+        for (var delay : List.of(60, 20, 40))
+        {
+            timer.schedule(() ->
+            {
+                order.add(delay);
+                latch.countDown();
+            }, Duration.ofMillis(delay));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(20, 40, 60), order);
+    }
+
+    @Test
+    public void neverRunsEarly() throws Exception
+    {
+        var latch = new CountDownLatch(1);
+        var ranAt = new long[1];
+
+        var scheduledAt = System.nanoTime();
+        timer.schedule(() ->
+        {
+            ranAt[0] = System.nanoTime();
+            latch.countDown();
+        }, Duration.ofMillis(30));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        //不早于到期时间，迟到的上限放宽以免测试不稳定
+        var elapsed = Duration.ofNanos(ranAt[0] - scheduledAt);
+        assertTrue(elapsed.compareTo(Duration.ofMillis(30)) >= 0, "Ran after " + elapsed);
+        assertTrue(elapsed.compareTo(Duration.ofMillis(500)) < 0, "Ran after " + elapsed);
+    }
+
+    @Test
+    public void zeroDelayRunsImmediately() throws Exception
+    {
+        var latch = new CountDownLatch(1);
+
+        timer.schedule(latch::countDown, Duration.ZERO);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void newEarlierTimeoutWakesTheWorker() throws Exception
+    {
+        var latch = new CountDownLatch(1);
+
+        timer.schedule(() -> { }, Duration.ofHours(1));
+        awaitState(findWorker(), Thread.State.TIMED_WAITING);
+
+        var scheduledAt = System.nanoTime();
+        timer.schedule(latch::countDown, Duration.ofMillis(10));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - scheduledAt < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    //endregion 到期
+
+    //region 取消
+
+    @Test
+    public void canceledTimeoutDoesNotRun() throws Exception
+    {
+        var ran = new AtomicInteger();
+        var latch = new CountDownLatch(1);
+
+        var timeout = timer.schedule(ran::incrementAndGet, Duration.ofMillis(20));
+        timeout.cancel();
+
+        timer.schedule(latch::countDown, Duration.ofMillis(60));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isCanceled());
+        assertEquals(0, ran.get());
+    }
+
+    @Test
+    public void cancelingTheLastTimeoutParksTheWorkerIndefinitely() throws Exception
+    {
+        var timeout = timer.schedule(() -> { }, Duration.ofHours(1));
+
+        var worker = findWorker();
+        awaitState(worker, Thread.State.TIMED_WAITING);
+
+        //取消会唤醒计时线程，时间轮为空后不再定时醒来
+        timeout.cancel();
+        awaitState(worker, Thread.State.WAITING);
+    }
+
+    @Test
+    public void shutdownRejectsNewTimeouts()
+    {
+        timer.shutdown();
+
+        var timeout = timer.schedule(() -> { }, Duration.ZERO);
+
+        assertTrue(timeout.isCanceled());
+    }
+
+    //endregion 取消
+
+    //region 重复任务
+
+    @Test
+    public void repeatingTimeoutRunsUntilCanceled() throws Exception
+    {
+        var runs = new AtomicInteger();
+        var latch = new CountDownLatch(3);
+
+        var timeout = timer.scheduleRepeating(() ->
+        {
+            runs.incrementAndGet();
+            latch.countDown();
+        }, Duration.ZERO, Duration.ofMillis(10));
+
+        assertTrue(timeout.isRepeating());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        timeout.cancel();
+        var runsAfterCancel = runs.get();
+
+        Thread.sleep(50);
+
+        //取消时可能正好有一次执行已经开始
+        assertTrue(runs.get() <= runsAfterCancel + 1);
+    }
+
+    @Test
+    public void rejectsNonPositivePeriod()
+    {
+        assertThrows(IllegalArgumentException.class, () -> timer.scheduleRepeating(() -> { }, Duration.ZERO, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncTimer("test", Runnable::run, t -> { }, Duration.ZERO));
+    }
+
+    //endregion 重复任务
+
+    @Test
+    public void exceptionsGoToTheHandler() throws Exception
+    {
+        var handled = new CountDownLatch(1);
+        var handler = new AsyncTimer("async-timer-exception-test", Runnable::run, t -> handled.countDown());
+
+        try
+        {
+            handler.schedule(() -> { throw new IllegalStateException("broken"); }, Duration.ZERO);
+
+            assertTrue(handled.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            handler.shutdown();
+        }
+    }
+}
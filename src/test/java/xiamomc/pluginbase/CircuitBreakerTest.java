@@ -0,0 +1,142 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest
+{
+    private static final String NAMESPACE = "circuit_breaker_test";
+
+    private HeadlessTickDriver driver;
+
+    private XiaMoJavaPlugin plugin;
+
+    @BeforeEach
+    public void setUp()
+    {
+        driver = TestPlugins.mockPlugin(NAMESPACE);
+        plugin = TestPlugins.getPlugin(NAMESPACE);
+    }
+
+    //region 滑动窗口
+
+    @Test
+    public void opensAfterLimitWithinWindow()
+    {
+        var breaker = new CircuitBreaker("test", 3, 10, 100);
+
+        assertFalse(breaker.recordFailure(1));
+        assertFalse(breaker.recordFailure(2));
+        assertTrue(breaker.recordFailure(3));
+
+        assertTrue(breaker.isOpen(3));
+        assertTrue(breaker.isOpen(102));
+        assertFalse(breaker.isOpen(103));
+    }
+
+    @Test
+    public void failuresOutsideWindowDoNotCount()
+    {
+        var breaker = new CircuitBreaker("test", 3, 10, 100);
+
+        assertFalse(breaker.recordFailure(1));
+        assertFalse(breaker.recordFailure(2));
+
+        //前两次异常已经离开窗口
+        assertFalse(breaker.recordFailure(20));
+        assertFalse(breaker.recordFailure(21));
+        assertFalse(breaker.isOpen(21));
+    }
+
+    //endregion 滑动窗口
+
+    //region PluginObject
+
+    private static class FlakyObject extends PluginObject<XiaMoJavaPlugin>
+    {
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+
+        void scheduleFailure()
+        {
+            this.addSchedule(() -> { throw new IllegalStateException("flaky"); });
+        }
+
+        void scheduleRun(Runnable runnable)
+        {
+            this.addSchedule(runnable);
+        }
+
+        boolean quarantined()
+        {
+            return this.isQuarantined();
+        }
+    }
+
+    private static class StableObject extends PluginObject<XiaMoJavaPlugin>
+    {
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+
+        void scheduleRun(Runnable runnable)
+        {
+            this.addSchedule(runnable);
+        }
+    }
+
+    @Test
+    public void instancesOfTheSameClassShareOneBreaker()
+    {
+        //每个对象只失败一次，按对象统计时永远不会熔断
+        for (int i = 0; i < plugin.getExceptionLimit(); i++)
+            new FlakyObject().scheduleFailure();
+
+        driver.advance(1);
+
+        var fresh = new FlakyObject();
+        assertTrue(fresh.quarantined());
+
+        var runs = new int[2];
+        fresh.scheduleRun(() -> runs[0]++);
+        new StableObject().scheduleRun(() -> runs[1]++);
+
+        driver.advance(1);
+
+        //只有出错的类被隔离
+        assertEquals(0, runs[0]);
+        assertEquals(1, runs[1]);
+    }
+
+    @Test
+    public void breakerIsCreatedOnFirstSchedule() throws Exception
+    {
+        var field = XiaMoJavaPlugin.class.getDeclaredField("objectBreakers");
+        field.setAccessible(true);
+
+        var breakers = (Map<?, ?>) field.get(plugin);
+
+        var objects = new ArrayList<StableObject>();
+        for (int i = 0; i < 100; i++)
+            objects.add(new StableObject());
+
+        assertTrue(breakers.isEmpty());
+
+        objects.get(0).scheduleRun(() -> { });
+        objects.get(1).scheduleRun(() -> { });
+
+        assertEquals(1, breakers.size());
+    }
+
+    //endregion PluginObject
+}
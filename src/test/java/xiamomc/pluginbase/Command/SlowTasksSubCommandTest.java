@@ -0,0 +1,128 @@
+package xiamomc.pluginbase.Command;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import xiamomc.pluginbase.HeadlessTickDriver;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+import xiamomc.pluginbase.Messages.MessageStore;
+import xiamomc.pluginbase.Messages.SlowTaskStrings;
+import xiamomc.pluginbase.SlowTaskDetector;
+import xiamomc.pluginbase.XiaMoJavaPlugin;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SlowTasksSubCommandTest
+{
+    private final XiaMoJavaPlugin plugin = mock(XiaMoJavaPlugin.class);
+
+    private final CommandSender sender = mock(CommandSender.class);
+
+    private final SlowTasksSubCommand command = new SlowTasksSubCommand(plugin, null);
+
+    private MessageStore<?> store;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        //没有翻译时使用消息中的默认值
+        store = mock(MessageStore.class);
+        doAnswer(invocation -> invocation.getArgument(1)).when(store).get(anyString(), any(), any());
+
+        DependencyContainer.GLOBAL.cacheAs(MessageStore.class, store);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        DependencyContainer.GLOBAL.unCacheAll();
+    }
+
+    private List<String> sentMessages()
+    {
+        var captor = ArgumentCaptor.forClass(Component.class);
+        verify(sender, atLeastOnce()).sendMessage(captor.capture());
+
+        return captor.getAllValues().stream()
+                .map(PlainTextComponentSerializer.plainText()::serialize)
+                .toList();
+    }
+
+    private SlowTaskDetector createDetectorWithRecord()
+    {
+        var detector = new SlowTaskDetector(1, TimeUnit.MILLISECONDS, 8, false);
+        var driver = new HeadlessTickDriver();
+        driver.getScheduler().setSlowTaskDetector(detector);
+
+        driver.getScheduler().schedule(() ->
+        {
+            var start = System.nanoTime();
+            while (System.nanoTime() - start < 2_000_000) Thread.onSpinWait();
+        }, 1);
+
+        driver.advance(1);
+
+        return detector;
+    }
+
+    @Test
+    public void reportsDisabledDetection()
+    {
+        when(plugin.getSlowTaskDetector()).thenReturn(null);
+
+        assertTrue(command.onCommand(sender, new String[0]));
+        assertEquals(List.of(SlowTaskStrings.detectionDisabled().getFallbackString()), sentMessages());
+    }
+
+    @Test
+    public void printsHeaderAndRecords()
+    {
+        var detector = createDetectorWithRecord();
+        when(plugin.getSlowTaskDetector()).thenReturn(detector);
+
+        command.onCommand(sender, new String[0]);
+
+        var messages = sentMessages();
+
+        assertEquals(2, messages.size());
+        assertEquals("共有1条耗时超过1.00ms的任务记录：", messages.get(0));
+
+        var record = messages.get(1);
+        assertTrue(record.contains("第1刻 任务"), record);
+        assertTrue(record.contains(detector.getRecords().get(0).getTaskName()), record);
+        assertFalse(record.contains("<"), record);
+    }
+
+    @Test
+    public void clearEmptiesRecords()
+    {
+        var detector = createDetectorWithRecord();
+        when(plugin.getSlowTaskDetector()).thenReturn(detector);
+
+        command.onCommand(sender, new String[] { "clear" });
+
+        assertTrue(detector.getRecords().isEmpty());
+        assertEquals(List.of(SlowTaskStrings.recordsCleared().getFallbackString()), sentMessages());
+    }
+
+    @Test
+    public void messagesAreTranslatable()
+    {
+        when(plugin.getSlowTaskDetector()).thenReturn(null);
+        doReturn("Slow task detection is disabled").when(store).get(eq(SlowTaskStrings.detectionDisabled().getKey()), any(), any());
+
+        command.onCommand(sender, new String[0]);
+
+        assertEquals(List.of("Slow task detection is disabled"), sentMessages());
+        assertEquals(SlowTaskStrings.help().getKey(), command.getHelpMessage().getKey());
+    }
+}
@@ -0,0 +1,149 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xiamomc.pluginbase.Annotations.Resolved;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeferredInjectionQueueTest
+{
+    private static final String NAMESPACE = "deferred_injection_test";
+
+    private HeadlessTickDriver driver;
+
+    private XiaMoJavaPlugin plugin;
+
+    private final Service service = new Service();
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        driver = TestPlugins.mockPlugin(NAMESPACE);
+        plugin = TestPlugins.getPlugin(NAMESPACE);
+
+        DependencyContainer.GLOBAL.cache(service);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        DependencyContainer.GLOBAL.unCacheAll();
+    }
+
+    private static class Service
+    {
+    }
+
+    private static class Missing
+    {
+    }
+
+    private static class InjectedObject extends PluginObject<XiaMoJavaPlugin>
+    {
+        @Resolved
+        private Service service;
+
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+
+        Service service()
+        {
+            return service;
+        }
+
+        void scheduleHigh(Runnable runnable)
+        {
+            this.addSchedule(runnable, 1, TaskPriority.HIGH);
+        }
+    }
+
+    private static class BrokenObject extends PluginObject<XiaMoJavaPlugin>
+    {
+        @Resolved
+        private Missing missing;
+
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+    }
+
+    @Test
+    public void highPriorityTasksSeeInjectedFields()
+    {
+        var seen = new ArrayList<Service>();
+
+        //在对象创建之前计划的任务同样能看到注入的字段
+        var object = new Object()
+        {
+            InjectedObject value;
+        };
+
+        plugin.schedule(() -> seen.add(object.value.service()), 1, TaskPriority.HIGH);
+
+        object.value = new InjectedObject();
+        object.value.scheduleHigh(() -> seen.add(object.value.service()));
+
+        assertNull(object.value.service());
+
+        driver.advance(1);
+
+        assertEquals(List.of(service, service), seen);
+        assertTrue(object.value.whenReady().isDone());
+    }
+
+    @Test
+    public void objectsCreatedDuringTickAreInjectedBeforeNextTick()
+    {
+        var created = new InjectedObject[1];
+        var seen = new ArrayList<Service>();
+
+        plugin.schedule(() ->
+        {
+            created[0] = new InjectedObject();
+            created[0].scheduleHigh(() -> seen.add(created[0].service()));
+        }, 1);
+
+        driver.advance(1);
+
+        assertNotNull(created[0]);
+        assertNull(created[0].service());
+
+        driver.advance(1);
+
+        assertEquals(List.of(service), seen);
+    }
+
+    @Test
+    public void failureDoesNotAffectOtherObjects()
+    {
+        var broken = new BrokenObject();
+        var injected = new InjectedObject();
+
+        driver.advance(1);
+
+        assertTrue(broken.whenReady().isCompletedExceptionally());
+        assertSame(service, injected.service());
+        assertEquals(0, plugin.getDeferredInjectionQueue().size());
+    }
+
+    @Test
+    public void objectsAreNotQueuedAfterSchedulesAreRejected()
+    {
+        plugin.scheduler.setAcceptSchedules(false);
+
+        new InjectedObject();
+
+        assertEquals(0, plugin.getDeferredInjectionQueue().size());
+    }
+}
@@ -0,0 +1,206 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xiamomc.pluginbase.Annotations.EagerInjection;
+import xiamomc.pluginbase.Annotations.Initializer;
+import xiamomc.pluginbase.Annotations.Resolved;
+import xiamomc.pluginbase.Exceptions.NullDependencyException;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EagerInjectionTest
+{
+    private static final String NAMESPACE = "eager_injection_test";
+
+    private HeadlessTickDriver driver;
+
+    @BeforeEach
+    public void setUp()
+    {
+        driver = TestPlugins.mockPlugin(NAMESPACE);
+
+        //让测试线程成为tick线程
+        driver.advance(1);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        DependencyContainer.GLOBAL.setEagerInjection(false);
+        DependencyContainer.GLOBAL.unCacheAll();
+    }
+
+    private static class Service
+    {
+    }
+
+    private static abstract class TestObject extends PluginObject<XiaMoJavaPlugin>
+    {
+        @Override
+        protected String getPluginNamespace()
+        {
+            return NAMESPACE;
+        }
+    }
+
+    @EagerInjection
+    private static class EagerObject extends TestObject
+    {
+        @Resolved
+        private Service service;
+
+        final Service seenInConstructor;
+
+        EagerObject()
+        {
+            this.seenInConstructor = service;
+        }
+    }
+
+    @EagerInjection
+    private static class EagerWithInitializer extends TestObject
+    {
+        @Resolved
+        private Service service;
+
+        //构造完成后才会执行初始化方法，此时字段初始化语句已经执行
+        private int initialized = 0;
+
+        Thread initializerThread;
+
+        @Initializer
+        private void load(Service service)
+        {
+            initialized++;
+            initializerThread = Thread.currentThread();
+        }
+    }
+
+    private static class DeferredObject extends TestObject
+    {
+        @Resolved
+        private Service service;
+    }
+
+    //region 构造时注入
+
+    @Test
+    public void fieldsAreInjectedDuringConstruction()
+    {
+        var service = new Service();
+        DependencyContainer.GLOBAL.cache(service);
+
+        var object = new EagerObject();
+
+        assertSame(service, object.seenInConstructor);
+        assertTrue(object.isReady());
+        assertTrue(object.whenReady().isDone());
+    }
+
+    @Test
+    public void containerLevelEagerInjection()
+    {
+        var service = new Service();
+        DependencyContainer.GLOBAL.cache(service);
+        DependencyContainer.GLOBAL.setEagerInjection(true);
+
+        var object = new DeferredObject();
+
+        assertSame(service, object.service);
+        assertTrue(object.isReady());
+    }
+
+    @Test
+    public void initializerRunsOnNextTickAfterConstruction()
+    {
+        DependencyContainer.GLOBAL.cache(new Service());
+
+        var object = new EagerWithInitializer();
+
+        assertNotNull(object.service);
+        assertEquals(0, object.initialized);
+        assertFalse(object.isReady());
+
+        driver.advance(1);
+
+        assertEquals(1, object.initialized);
+        assertTrue(object.whenReady().isDone());
+    }
+
+    //endregion 构造时注入
+
+    //region 注册时注入
+
+    @Test
+    public void registeringOnTickThreadInjectsImmediately()
+    {
+        var object = new EagerWithInitializer();
+
+        assertNull(object.service);
+        assertFalse(object.isReady());
+
+        var service = new Service();
+        DependencyContainer.GLOBAL.cache(service);
+
+        //不需要等到下一刻
+        assertSame(service, object.service);
+        assertEquals(1, object.initialized);
+        assertSame(Thread.currentThread(), object.initializerThread);
+        assertTrue(object.whenReady().isDone());
+    }
+
+    @Test
+    public void registeringFromAnotherThreadRunsInitializerOnTickThread() throws Exception
+    {
+        var object = new EagerWithInitializer();
+        var service = new Service();
+
+        var thread = new Thread(() -> DependencyContainer.GLOBAL.cache(service));
+        thread.start();
+        thread.join();
+
+        //字段在注册的线程中注入，初始化方法留给下一刻
+        assertSame(service, object.service);
+        assertEquals(0, object.initialized);
+
+        driver.advance(1);
+
+        assertEquals(1, object.initialized);
+        assertSame(Thread.currentThread(), object.initializerThread);
+        assertTrue(object.whenReady().isDone());
+    }
+
+    @Test
+    public void clearingContainerFailsWaitingObjects()
+    {
+        var object = new EagerObject();
+
+        DependencyContainer.GLOBAL.unCacheAll();
+
+        var exception = assertThrows(CompletionException.class, () -> object.whenReady().join());
+        assertInstanceOf(NullDependencyException.class, exception.getCause());
+
+        //之后重新注册也不会再注入
+        DependencyContainer.GLOBAL.cache(new Service());
+        assertNull(object.service);
+    }
+
+    @Test
+    public void disposedObjectsStopWaiting()
+    {
+        var object = new EagerObject();
+
+        object.dispose();
+        DependencyContainer.GLOBAL.cache(new Service());
+
+        assertNull(object.service);
+        assertFalse(object.isReady());
+    }
+
+    //endregion 注册时注入
+}
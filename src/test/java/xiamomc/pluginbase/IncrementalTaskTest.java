@@ -0,0 +1,212 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalTaskTest
+{
+    private static List<Integer> items(int count)
+    {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    //region 完成
+
+    @Test
+    public void processesItemsPerTickInOrderAndCompletes() throws Exception
+    {
+        var driver = new HeadlessTickDriver();
+        var processed = new ArrayList<Integer>();
+
+        var task = driver.getScheduler().scheduleForEach(items(10), processed::add, 3);
+
+        driver.advance(1);
+        assertEquals(List.of(0, 1, 2), processed);
+        assertEquals(0.3, task.getProgress(), 1e-9);
+        assertFalse(task.isDone());
+
+        driver.advance(3);
+
+        assertEquals(items(10), processed);
+        assertTrue(task.isDone());
+        assertEquals(10, task.getCompletion().get());
+        assertEquals(1, task.getProgress());
+
+        //完成后不再占用调度器
+        assertTrue(driver.getScheduler().isIdle());
+    }
+
+    @Test
+    public void timedTaskProcessesAtLeastOneItemPerTick() throws Exception
+    {
+        var driver = new HeadlessTickDriver();
+        var processed = new ArrayList<Integer>();
+
+        var task = driver.getScheduler().scheduleForEachTimed(items(5), i ->
+        {
+            processed.add(i);
+
+            //每个元素都超出预算
+            var start = System.nanoTime();
+            while (System.nanoTime() - start < 1_000_000) Thread.onSpinWait();
+        }, 1);
+
+        driver.advance(1);
+        assertEquals(1, processed.size());
+
+        driver.advance(4);
+
+        assertEquals(items(5), processed);
+        assertTrue(task.isDone());
+        assertEquals(5, task.getCompletion().get());
+    }
+
+    @Test
+    public void unknownSizeReportsNoProgress()
+    {
+        var driver = new HeadlessTickDriver();
+        Iterable<Integer> iterable = () -> items(4).iterator();
+
+        var task = driver.getScheduler().scheduleForEach(iterable, i -> { }, 1);
+
+        assertEquals(-1, task.getTotalCount());
+        assertEquals(-1, task.getProgress());
+
+        driver.advance(4);
+
+        assertTrue(task.isDone());
+        assertEquals(4, task.getProcessedCount());
+    }
+
+    @Test
+    public void rejectsNonPositiveLimits()
+    {
+        var scheduler = new TickScheduler(Runnable::run);
+
+        assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleForEach(items(1), i -> { }, 0));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleForEachTimed(items(1), i -> { }, 0));
+    }
+
+    //endregion 完成
+
+    //region 取消和异常
+
+    @Test
+    public void cancelStopsProcessing()
+    {
+        var driver = new HeadlessTickDriver();
+        var processed = new ArrayList<Integer>();
+
+        var task = driver.getScheduler().scheduleForEach(items(10), processed::add, 2);
+
+        driver.advance(1);
+        task.cancel();
+        driver.advance(10);
+
+        assertEquals(List.of(0, 1), processed);
+        assertTrue(task.isDone());
+        assertTrue(task.getCompletion().isCancelled());
+        assertTrue(driver.getScheduler().isIdle());
+    }
+
+    @Test
+    public void exceptionCompletesExceptionally()
+    {
+        var driver = new HeadlessTickDriver();
+        var processed = new ArrayList<Integer>();
+
+        var task = driver.getScheduler().scheduleForEach(items(10), i ->
+        {
+            if (i == 3) throw new IllegalStateException("broken");
+            processed.add(i);
+        }, 2);
+
+        driver.advance(5);
+
+        assertEquals(List.of(0, 1, 2), processed);
+
+        var exception = assertThrows(ExecutionException.class, () -> task.getCompletion().get());
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertTrue(driver.getScheduler().isIdle());
+    }
+
+    @Test
+    public void rejectedScheduleCancelsImmediately()
+    {
+        var scheduler = new TickScheduler(Runnable::run);
+        scheduler.setAcceptSchedules(false);
+
+        var task = scheduler.scheduleForEach(items(3), i -> { }, 1);
+
+        assertTrue(task.getCompletion().isCancelled());
+    }
+
+    //endregion 取消和异常
+
+    //region 丢弃
+
+    @Test
+    public void clearAllSchedulesCompletesTask()
+    {
+        var driver = new HeadlessTickDriver();
+        var callbacks = new int[1];
+
+        var task = driver.getScheduler().scheduleForEach(items(10), i -> { }, 1);
+        task.getCompletion().whenComplete((r, t) -> callbacks[0]++);
+
+        driver.advance(2);
+        driver.getScheduler().clearAllSchedules();
+
+        assertTrue(task.isDone());
+        assertEquals(1, callbacks[0]);
+        assertEquals(2, task.getProcessedCount());
+        assertThrows(CancellationException.class, () -> task.getCompletion().join());
+    }
+
+    @Test
+    public void dropAllSchedulesCompletesTaskOnNextTick()
+    {
+        var driver = new HeadlessTickDriver();
+
+        var task = driver.getScheduler().scheduleForEach(items(10), i -> { }, 1);
+
+        driver.advance(2);
+        driver.getScheduler().dropAllSchedules();
+
+        assertFalse(task.isDone());
+
+        driver.advance(1);
+
+        assertTrue(task.isDone());
+        assertTrue(task.getCompletion().isCancelled());
+        assertEquals(2, task.getProcessedCount());
+    }
+
+    @Test
+    public void droppedFromInsideTheTaskCompletes()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        var task = scheduler.scheduleForEach(items(10), i ->
+        {
+            if (i == 4) scheduler.clearAllSchedules();
+        }, 2);
+
+        driver.advance(3);
+
+        //这一刻剩下的元素仍会处理完，之后不再继续
+        assertTrue(task.isDone());
+        assertEquals(6, task.getProcessedCount());
+        assertTrue(scheduler.isIdle());
+    }
+
+    //endregion 丢弃
+}
@@ -0,0 +1,117 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+import xiamomc.pluginbase.Annotations.EagerInjection;
+import xiamomc.pluginbase.Annotations.Initializer;
+import xiamomc.pluginbase.Annotations.Resolved;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InjectionPlanTest
+{
+    private static class First
+    {
+    }
+
+    private static class Second
+    {
+    }
+
+    private static class Base
+    {
+        @Resolved
+        private First first;
+
+        @Resolved(shouldSolveImmediately = true)
+        private Second immediate;
+    }
+
+    private static class Derived extends Base
+    {
+        @Resolved
+        private Second second;
+
+        @Resolved(allowNull = true)
+        private String optional;
+
+        @Initializer
+        private void load(First first)
+        {
+        }
+    }
+
+    @EagerInjection
+    private static class EagerDerived extends Derived
+    {
+    }
+
+    private static class Plain
+    {
+        private First notResolved;
+    }
+
+    private static class TwoInitializers
+    {
+        @Initializer
+        private void first()
+        {
+        }
+
+        @Initializer
+        private void second()
+        {
+        }
+    }
+
+    @Test
+    public void plansAreCreatedOncePerClass()
+    {
+        var plan = InjectionPlan.of(Derived.class);
+
+        assertSame(plan, InjectionPlan.of(Derived.class));
+        assertNotSame(plan, InjectionPlan.of(Base.class));
+    }
+
+    @Test
+    public void planIncludesSuperclassMembers()
+    {
+        var plan = InjectionPlan.of(Derived.class);
+
+        assertTrue(plan.hasDeferredWork());
+        assertTrue(plan.hasInitializer());
+        assertFalse(plan.isEager());
+
+        //父类在前，允许为null的字段不是必需的
+        assertEquals(List.of(First.class, Second.class), plan.getRequiredDependencies());
+
+        var base = InjectionPlan.of(Base.class);
+        assertFalse(base.hasInitializer());
+        assertEquals(List.of(First.class), base.getRequiredDependencies());
+    }
+
+    @Test
+    public void eagerAnnotationIsInherited()
+    {
+        assertTrue(InjectionPlan.of(EagerDerived.class).isEager());
+        assertEquals(InjectionPlan.of(Derived.class).getRequiredDependencies(),
+                InjectionPlan.of(EagerDerived.class).getRequiredDependencies());
+    }
+
+    @Test
+    public void classWithoutAnnotationsHasNoWork()
+    {
+        var plan = InjectionPlan.of(Plain.class);
+
+        assertFalse(plan.hasDeferredWork());
+        assertFalse(plan.hasInitializer());
+        assertTrue(plan.getRequiredDependencies().isEmpty());
+    }
+
+    @Test
+    public void multipleInitializersAreRejected()
+    {
+        assertThrows(RuntimeException.class, () -> InjectionPlan.of(TwoInitializers.class));
+    }
+}
@@ -0,0 +1,123 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderedExecutorTest
+{
+    @Test
+    public void runsTasksOfTheSameKeyInSubmissionOrder() throws Exception
+    {
+        var pool = Executors.newFixedThreadPool(8);
+        var submitters = Executors.newFixedThreadPool(8);
+
+        try
+        {
+            var failures = new AtomicInteger();
+            var executor = new OrderedExecutor(pool, t -> failures.incrementAndGet());
+
+            var keys = 32;
+            var perKey = 5_000;
+
+            var last = new int[keys];
+            var running = new AtomicIntegerArray(keys);
+            var violations = new AtomicInteger();
+            var done = new CountDownLatch(keys * perKey);
+
+            //每个键只由一个线程提交，保证提交顺序确定
+            for (int k = 0; k < keys; k++)
+            {
+                var key = k;
+
+                submitters.execute(() ->
+                {
+                    for (int i = 1; i <= perKey; i++)
+                    {
+                        var sequence = i;
+
+                        executor.execute(key, () ->
+                        {
+                            if (running.incrementAndGet(key) != 1) violations.incrementAndGet();
+                            if (last[key] != sequence - 1) violations.incrementAndGet();
+
+                            last[key] = sequence;
+
+                            running.decrementAndGet(key);
+                            done.countDown();
+                        });
+                    }
+                });
+            }
+
+            assertTrue(done.await(60, TimeUnit.SECONDS), "任务没有全部执行");
+            assertEquals(0, violations.get(), "同一个键的任务没有按顺序执行");
+            assertEquals(0, failures.get());
+
+            for (int k = 0; k < keys; k++)
+                assertEquals(perKey, last[k]);
+        }
+        finally
+        {
+            pool.shutdown();
+            submitters.shutdown();
+        }
+    }
+
+    @Test
+    public void exceptionDoesNotBlockLaterTasksOfTheKey() throws Exception
+    {
+        var pool = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            var failures = new AtomicInteger();
+            var executor = new OrderedExecutor(pool, t -> failures.incrementAndGet());
+            var done = new CountDownLatch(1);
+
+            executor.execute("key", () -> { throw new IllegalStateException(); });
+            executor.execute("key", done::countDown);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1, failures.get());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void releasesIdleKeys() throws Exception
+    {
+        var pool = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            var executor = new OrderedExecutor(pool, Throwable::printStackTrace);
+            var done = new CountDownLatch(100);
+
+            for (int i = 0; i < 100; i++)
+                executor.execute(i, done::countDown);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            //最后一个任务执行完毕后，键的队列才会被移除
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (executor.getActiveKeyCount() > 0 && System.nanoTime() < deadline)
+                Thread.sleep(10);
+
+            assertEquals(0, executor.getActiveKeyCount());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+import xiamomc.pluginbase.Annotations.Initializer;
+import xiamomc.pluginbase.Annotations.Resolved;
+import xiamomc.pluginbase.Exceptions.NullDependencyException;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReflectionInjectorTest
+{
+    private static class First
+    {
+    }
+
+    private static class Second
+    {
+    }
+
+    private static DependencyContainer createContainer(Object... dependencies)
+    {
+        var container = new DependencyContainer();
+
+        for (var dependency : dependencies)
+            container.cache(dependency);
+
+        return container;
+    }
+
+    //region 字段
+
+    private static class Fields
+    {
+        @Resolved(shouldSolveImmediately = true)
+        private First immediate;
+
+        @Resolved
+        private Second deferred;
+
+        @Resolved(allowNull = true)
+        private String optional = "unchanged";
+
+        @SuppressWarnings("FieldMayBeFinal")
+        @Resolved
+        private final First finalField = null;
+    }
+
+    @Test
+    public void injectsPrivateFieldsByPhase()
+    {
+        var first = new First();
+        var second = new Second();
+        var container = createContainer(first, second);
+
+        var injector = new ReflectionInjector(Fields.class);
+        var target = new Fields();
+
+        assertTrue(injector.hasImmediateWork());
+        assertTrue(injector.hasDeferredWork());
+        assertFalse(injector.hasInitializer());
+
+        injector.injectImmediate(target, container);
+
+        assertSame(first, target.immediate);
+        assertNull(target.deferred);
+
+        injector.injectDeferred(target, container);
+
+        assertSame(second, target.deferred);
+        assertSame(first, target.finalField);
+
+        //允许为null的字段在找不到依赖时被设为null
+        assertNull(target.optional);
+    }
+
+    @Test
+    public void missingDependencyThrows()
+    {
+        var injector = new ReflectionInjector(Fields.class);
+
+        assertThrows(NullDependencyException.class, () -> injector.injectDeferred(new Fields(), createContainer(new First())));
+    }
+
+    private static class NonPrivateField
+    {
+        @Resolved
+        First first;
+    }
+
+    @Test
+    public void nonPrivateFieldsAreRejectedOnInjection()
+    {
+        var injector = new ReflectionInjector(NonPrivateField.class);
+
+        assertThrows(RuntimeException.class, () -> injector.injectDeferred(new NonPrivateField(), createContainer(new First())));
+    }
+
+    //endregion 字段
+
+    //region 初始化方法
+
+    private static class WithInitializer
+    {
+        @Resolved
+        private First first;
+
+        final List<Object> received = new ArrayList<>();
+
+        @Initializer
+        private void load(First first, Second second, First firstAgain)
+        {
+            //字段已经在初始化方法之前注入
+            received.add(this.first);
+            received.add(first);
+            received.add(second);
+            received.add(firstAgain);
+        }
+    }
+
+    @Test
+    public void initializerReceivesDependencies()
+    {
+        var first = new First();
+        var second = new Second();
+        var container = createContainer(first, second);
+
+        var injector = new ReflectionInjector(WithInitializer.class);
+        var target = new WithInitializer();
+
+        assertTrue(injector.hasInitializer());
+        assertEquals(List.of(First.class, Second.class), injector.getRequiredDependencies());
+
+        injector.injectDeferred(target, container);
+        injector.initialize(target, container);
+
+        assertEquals(List.of(first, first, second, first), target.received);
+    }
+
+    @Test
+    public void initializerWithMissingDependencyThrows()
+    {
+        var injector = new ReflectionInjector(WithInitializer.class);
+
+        assertThrows(NullDependencyException.class, () -> injector.initialize(new WithInitializer(), createContainer(new First())));
+    }
+
+    private static class NoArgumentInitializer
+    {
+        int calls;
+
+        @Initializer
+        private void load()
+        {
+            calls++;
+        }
+    }
+
+    @Test
+    public void initializerWithoutParameters()
+    {
+        var target = new NoArgumentInitializer();
+
+        new ReflectionInjector(NoArgumentInitializer.class).initialize(target, createContainer());
+
+        assertEquals(1, target.calls);
+    }
+
+    private static class NonPrivateInitializer
+    {
+        @Initializer
+        void load()
+        {
+        }
+    }
+
+    @Test
+    public void nonPrivateInitializersAreRejectedOnInvocation()
+    {
+        var injector = new ReflectionInjector(NonPrivateInitializer.class);
+
+        assertThrows(RuntimeException.class, () -> injector.initialize(new NonPrivateInitializer(), createContainer()));
+    }
+
+    //endregion 初始化方法
+
+    //region 继承
+
+    private static class Parent
+    {
+        final List<String> order = new ArrayList<>();
+
+        @Resolved
+        private First parentField;
+
+        @Initializer
+        private void load()
+        {
+            order.add("parent:" + (parentField != null));
+        }
+
+        First parentField()
+        {
+            return parentField;
+        }
+    }
+
+    private static class Child extends Parent
+    {
+        @Resolved
+        private Second childField;
+
+        @Initializer
+        private void load()
+        {
+            order.add("child:" + (childField != null && parentField() != null));
+        }
+    }
+
+    @Test
+    public void superclassMembersAreInjectedFirst()
+    {
+        var first = new First();
+        var second = new Second();
+        var target = new Child();
+
+        InjectionPlan.of(Child.class).injectDeferred(target, createContainer(first, second));
+
+        assertSame(first, target.parentField());
+        assertSame(second, target.childField);
+
+        //所有字段注入后，再从父类到子类调用初始化方法
+        assertEquals(List.of("parent:true", "child:true"), target.order);
+    }
+
+    //endregion 继承
+}
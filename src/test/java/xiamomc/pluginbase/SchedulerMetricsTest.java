@@ -0,0 +1,169 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchedulerMetricsTest
+{
+    //region 直方图
+
+    @Test
+    public void histogramBucketsByPowerOfTwo()
+    {
+        var histogram = new LatencyHistogram();
+
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(1000);
+        histogram.record(-5);
+
+        var counts = histogram.getBucketCounts();
+
+        //负数按0记录
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[2]);
+        assertEquals(1, counts[10]);
+
+        assertEquals(5, histogram.getCount());
+        assertEquals(1004, histogram.getTotalNanos());
+        assertEquals(1000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void percentileReturnsUpperBoundCappedByMax()
+    {
+        var histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 99; i++)
+            histogram.record(100);
+
+        histogram.record(5000);
+
+        //100纳秒落在[64, 128)区间
+        assertEquals(128, histogram.getPercentileNanos(0.5));
+        assertEquals(128, histogram.getPercentileNanos(0.99));
+        assertEquals(5000, histogram.getPercentileNanos(1));
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(0.99));
+    }
+
+    @Test
+    public void resetClearsHistogram()
+    {
+        var histogram = new LatencyHistogram();
+
+        histogram.record(1234);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    //endregion 直方图
+
+    //region 调度器统计
+
+    private static final class CountingTask implements Runnable
+    {
+        @Override
+        public void run()
+        {
+        }
+    }
+
+    @Test
+    public void recordsTicksTasksAndQueueDepth()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var metrics = scheduler.getMetrics();
+
+        for (int i = 0; i < 10; i++)
+            scheduler.schedule(new CountingTask(), 1);
+
+        for (int i = 0; i < 5; i++)
+            scheduler.schedule(new CountingTask(), 100);
+
+        driver.advance(1);
+
+        assertEquals(10, metrics.getLastTickTasksRun());
+        assertEquals(5, metrics.getPendingCount());
+        assertEquals(1, metrics.getTickDuration().getCount());
+
+        driver.advance(99);
+
+        assertEquals(15, metrics.getTotalTasksRun());
+        assertEquals(0, metrics.getPendingCount());
+        assertEquals(100, metrics.getTickDuration().getCount());
+
+        //按任务的类型统计耗时
+        var durations = metrics.getTaskDurations().get(CountingTask.class);
+        assertNotNull(durations);
+        assertEquals(15, durations.getCount());
+    }
+
+    @Test
+    public void groupTasksAreRecordedUnderTheirOwnClass()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        scheduler.schedule(new CountingTask(), 1, false, new TaskGroup("test", null));
+        driver.advance(1);
+
+        assertEquals(1, scheduler.getMetrics().getTaskDurations().get(CountingTask.class).getCount());
+        assertFalse(scheduler.getMetrics().getTaskDurations().containsKey(TaskGroup.GroupTask.class));
+    }
+
+    @Test
+    public void recordsAsyncQueueWait() throws Exception
+    {
+        var executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            var driver = new HeadlessTickDriver(new TickScheduler(executor));
+            var metrics = driver.getScheduler().getMetrics();
+
+            for (int i = 0; i < 20; i++)
+                driver.getScheduler().schedule(new CountingTask(), 1, true);
+
+            driver.advance(1);
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(20, metrics.getAsyncQueueWait().getCount());
+            assertEquals(20, metrics.getTaskDurations().get(CountingTask.class).getCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resetClearsSchedulerMetrics()
+    {
+        var driver = new HeadlessTickDriver();
+        var metrics = driver.getScheduler().getMetrics();
+
+        driver.getScheduler().schedule(new CountingTask(), 1);
+        driver.advance(1);
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getTotalTasksRun());
+        assertEquals(0, metrics.getTickDuration().getCount());
+        assertEquals(0, metrics.getTaskDurations().get(CountingTask.class).getCount());
+    }
+
+    //endregion 调度器统计
+}
@@ -0,0 +1,124 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowTaskDetectorTest
+{
+    private static void spin(long millis)
+    {
+        var start = System.nanoTime();
+        while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(millis)) Thread.onSpinWait();
+    }
+
+    private static final class SlowTask implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            spin(5);
+        }
+    }
+
+    private static HeadlessTickDriver createDriver(SlowTaskDetector detector)
+    {
+        var driver = new HeadlessTickDriver();
+        driver.getScheduler().setSlowTaskDetector(detector);
+
+        return driver;
+    }
+
+    @Test
+    public void recordsOnlyTasksOverThreshold()
+    {
+        var detector = new SlowTaskDetector(2, TimeUnit.MILLISECONDS, 8, false);
+        var driver = createDriver(detector);
+
+        driver.getScheduler().schedule(() -> { }, 1);
+        driver.getScheduler().schedule(new SlowTask(), 1);
+        driver.advance(1);
+
+        var records = detector.getRecords();
+
+        assertEquals(1, records.size());
+
+        var record = records.get(0);
+        assertEquals(SlowTask.class.getName(), record.getTaskName());
+        assertEquals(1, record.getTick());
+        assertFalse(record.isAsync());
+        assertNull(record.getOwnerName());
+        assertNull(record.getSampledStack());
+        assertTrue(record.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(2));
+    }
+
+    @Test
+    public void groupTasksRecordTheirOwner()
+    {
+        var detector = new SlowTaskDetector(2, TimeUnit.MILLISECONDS, 8, false);
+        var driver = createDriver(detector);
+
+        driver.getScheduler().schedule(new SlowTask(), 1, false, new TaskGroup("owner", null));
+        driver.advance(1);
+
+        var record = detector.getRecords().get(0);
+        assertEquals(SlowTask.class.getName(), record.getTaskName());
+        assertEquals("owner", record.getOwnerName());
+    }
+
+    @Test
+    public void ringBufferKeepsNewestRecords()
+    {
+        var detector = new SlowTaskDetector(2, TimeUnit.MILLISECONDS, 2, false);
+        var driver = createDriver(detector);
+
+        for (int i = 1; i <= 3; i++)
+            driver.getScheduler().schedule(new SlowTask(), i);
+
+        driver.advance(3);
+
+        var records = detector.getRecords();
+
+        assertEquals(3, detector.getTotalRecorded());
+        assertEquals(2, records.size());
+        assertEquals(2, records.get(0).getTick());
+        assertEquals(3, records.get(1).getTick());
+
+        detector.clear();
+
+        assertTrue(detector.getRecords().isEmpty());
+        assertEquals(0, detector.getTotalRecorded());
+    }
+
+    @Test
+    public void samplesTheMainThreadWhileTaskIsSlow()
+    {
+        var detector = new SlowTaskDetector(5, TimeUnit.MILLISECONDS, 8, true);
+        var driver = createDriver(detector);
+
+        try
+        {
+            driver.getScheduler().schedule(() -> spin(100), 1);
+            driver.advance(1);
+
+            var stack = detector.getRecords().get(0).getSampledStack();
+
+            assertNotNull(stack);
+            assertTrue(Arrays.stream(stack).anyMatch(e -> e.getMethodName().equals("spin")));
+        }
+        finally
+        {
+            detector.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsNonPositiveArguments()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new SlowTaskDetector(0, TimeUnit.MILLISECONDS, 8, false));
+        assertThrows(IllegalArgumentException.class, () -> new SlowTaskDetector(1, TimeUnit.MILLISECONDS, 0, false));
+    }
+}
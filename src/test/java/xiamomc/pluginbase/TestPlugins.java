@@ -0,0 +1,81 @@
+package xiamomc.pluginbase;
+
+import org.slf4j.LoggerFactory;
+import xiamomc.pluginbase.Managers.DependencyContainer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * JavaPlugin只能在服务器中创建，测试使用mock代替真正的插件
+ * <br>
+ * mock会执行插件中真正的方法，但不会执行构造方法和字段的初始化语句，需要的字段由这里手动设置
+ */
+final class TestPlugins
+{
+    private TestPlugins()
+    {
+    }
+
+    /**
+     * 创建一个注册在namespace下的插件，其计划任务由返回的驱动器推进
+     */
+    static HeadlessTickDriver mockPlugin(String namespace)
+    {
+        var plugin = mock(XiaMoJavaPlugin.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        var logger = LoggerFactory.getLogger(namespace);
+
+        doReturn(namespace).when(plugin).getNamespace();
+        doReturn(logger).when(plugin).getSLF4JLogger();
+
+        //和插件中的调度器一样，把异常交给插件处理，并在每刻开始时完成延迟注入
+        var scheduler = new TickScheduler(Runnable::run)
+        {
+            @Override
+            protected void onTaskExceptionCaught(Throwable exception, ScheduleInfo scheduleInfo)
+            {
+                plugin.onTaskExceptionCaught(exception, scheduleInfo);
+            }
+
+            @Override
+            protected void onTickStarted()
+            {
+                plugin.getDeferredInjectionQueue().drain();
+            }
+        };
+
+        try
+        {
+            setField(plugin, "logger", logger);
+            setField(plugin, "dependencyContainer", DependencyContainer.GLOBAL);
+            setField(plugin, "scheduler", scheduler);
+            setField(plugin, "deferredInjections", new DeferredInjectionQueue(plugin));
+            setField(plugin, "objectBreakers", new ConcurrentHashMap<>());
+
+            var field = XiaMoJavaPlugin.class.getDeclaredField("instances");
+            field.setAccessible(true);
+
+            ((Map<String, XiaMoJavaPlugin>) field.get(null)).put(namespace, plugin);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return new HeadlessTickDriver(scheduler);
+    }
+
+    static XiaMoJavaPlugin getPlugin(String namespace)
+    {
+        return XiaMoJavaPlugin.getInstance(namespace);
+    }
+
+    private static void setField(XiaMoJavaPlugin plugin, String name, Object value) throws ReflectiveOperationException
+    {
+        var field = XiaMoJavaPlugin.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(plugin, value);
+    }
+}
@@ -0,0 +1,813 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickSchedulerTest
+{
+    //region 暂停
+
+    @Test
+    public void pauseDuringTickKeepsRemainingDueTasks()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var order = new StringBuilder();
+
+        scheduler.schedule(() ->
+        {
+            order.append('a');
+            scheduler.setCancelSchedules(true);
+        }, 1);
+        scheduler.schedule(() -> order.append('b'), 1);
+        scheduler.schedule(() -> order.append('c'), 1);
+
+        driver.advance(3);
+        assertEquals("a", order.toString());
+
+        scheduler.setCancelSchedules(false);
+        driver.advance(1);
+
+        assertEquals("abc", order.toString());
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void advanceUntilIdleStopsAfterLastTask()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        scheduler.schedule(() -> { }, 40);
+
+        assertEquals(40, driver.advanceUntilIdle(1000));
+        assertEquals(0, driver.advanceUntilIdle(1000));
+        assertEquals(40, driver.getCurrentTick());
+    }
+
+    //endregion 暂停
+
+    //region 到期时间
+
+    @Test
+    public void runsTasksAtTheirDeadlineAcrossCascades()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var random = new Random(2);
+
+        var count = 20_000;
+        var expected = new long[count];
+        var actual = new long[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            var index = i;
+            var delay = random.nextInt(4) == 0 ? random.nextInt(300_000) : random.nextInt(200);
+
+            var info = scheduler.schedule(() -> actual[index] = scheduler.getCurrentTick(), delay);
+            expected[i] = info.TickScheduled + Math.max(info.Delay, 1);
+
+            //分散在不同的刻中提交
+            if (i % 100 == 0) driver.advance(random.nextInt(500));
+        }
+
+        driver.advanceUntilIdle(1_000_000);
+
+        assertTrue(scheduler.isIdle());
+
+        for (int i = 0; i < count; i++)
+            assertEquals(expected[i], actual[i], "第" + i + "个任务没有在计划的刻执行");
+    }
+
+    @Test
+    public void tasksScheduledFromTickThreadRunOnTheirOwnDeadline()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var ranAt = new ArrayList<Long>();
+
+        scheduler.schedule(() ->
+        {
+            scheduler.schedule(() -> ranAt.add(scheduler.getCurrentTick()), 0);
+            scheduler.schedule(() -> ranAt.add(scheduler.getCurrentTick()), 70);
+            scheduler.schedule(() -> ranAt.add(scheduler.getCurrentTick()), 5000);
+        }, 3);
+
+        driver.advanceUntilIdle(10_000);
+
+        assertEquals(List.of(4L, 73L, 5003L), ranAt);
+    }
+
+    //endregion 到期时间
+
+    //region 提交
+
+    @Test
+    public void schedulesFromOtherThreadsRunExactlyOnce() throws Exception
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        driver.advance(1);
+
+        var threads = 4;
+        var perThread = 5_000;
+        var runs = new AtomicIntegerArray(threads * perThread);
+        var early = new AtomicInteger();
+
+        var submitters = new ArrayList<Thread>();
+
+        for (int t = 0; t < threads; t++)
+        {
+            var offset = t * perThread;
+
+            var thread = new Thread(() ->
+            {
+                for (int i = 0; i < perThread; i++)
+                {
+                    var index = offset + i;
+                    var holder = new ScheduleInfo[1];
+
+                    holder[0] = scheduler.schedule(() ->
+                    {
+                        runs.incrementAndGet(index);
+
+                        //在tick进行的同时提交时可能晚几刻才被取出，但不会提前执行
+                        if (scheduler.getCurrentTick() < holder[0].TickScheduled + Math.max(holder[0].Delay, 1))
+                            early.incrementAndGet();
+                    }, i % 20);
+                }
+            });
+
+            submitters.add(thread);
+            thread.start();
+        }
+
+        //提交的同时继续推进
+        while (submitters.stream().anyMatch(Thread::isAlive))
+            driver.advance(1);
+
+        for (var thread : submitters)
+            thread.join();
+
+        driver.advance(30);
+
+        for (int i = 0; i < runs.length(); i++)
+            assertEquals(1, runs.get(i), "第" + i + "个任务的执行次数不正确");
+
+        assertEquals(0, early.get(), "有任务在计划的刻之前执行");
+        assertTrue(scheduler.isIdle());
+    }
+
+    //endregion 提交
+
+    //region 重复任务
+
+    /**
+     * 记录每次执行和交给异常处理的ScheduleInfo
+     */
+    private static class RecordingScheduler extends TickScheduler
+    {
+        final List<ScheduleInfo> executed = new ArrayList<>();
+
+        final List<ScheduleInfo> failed = new ArrayList<>();
+
+        RecordingScheduler()
+        {
+            super(Runnable::run);
+        }
+
+        @Override
+        protected void runFunction(ScheduleInfo c)
+        {
+            executed.add(c);
+            super.runFunction(c);
+        }
+
+        @Override
+        protected void onTaskExceptionCaught(Throwable exception, ScheduleInfo scheduleInfo)
+        {
+            failed.add(scheduleInfo);
+        }
+    }
+
+    @Test
+    public void repeatingTaskIsRearmedWithItsPeriod()
+    {
+        var scheduler = new RecordingScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+        var ranAt = new ArrayList<Long>();
+
+        var holder = new ScheduleInfo[1];
+        holder[0] = scheduler.scheduleRepeating(() ->
+        {
+            ranAt.add(scheduler.getCurrentTick());
+
+            if (ranAt.size() == 5) holder[0].cancel();
+        }, 3, 5);
+
+        driver.advance(100);
+
+        assertEquals(List.of(3L, 8L, 13L, 18L, 23L), ranAt);
+        assertTrue(scheduler.isIdle());
+
+        //每次执行的都是同一个ScheduleInfo
+        for (var info : scheduler.executed)
+            assertSame(holder[0], info);
+    }
+
+    @Test
+    public void repeatingTaskKeepsRunningAfterException()
+    {
+        var scheduler = new RecordingScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+        var runs = new int[1];
+
+        scheduler.scheduleRepeating(() ->
+        {
+            runs[0]++;
+            throw new IllegalStateException();
+        }, 1, 2);
+
+        driver.advance(10);
+
+        assertEquals(5, runs[0]);
+        assertEquals(5, scheduler.failed.size());
+    }
+
+    @Test
+    public void repeatingRejectsNonPositivePeriod()
+    {
+        var scheduler = new TickScheduler(Runnable::run);
+
+        assertThrows(IllegalArgumentException.class, () -> scheduler.scheduleRepeating(() -> { }, 1, 0));
+    }
+
+    //endregion 重复任务
+
+    //region 时间预算
+
+    /**
+     * 可以在测试中随时修改时间预算的调度器
+     */
+    private static class BudgetScheduler extends TickScheduler
+    {
+        long budget;
+
+        BudgetScheduler()
+        {
+            super(Runnable::run);
+        }
+
+        @Override
+        protected long getTickBudgetNanos()
+        {
+            return budget;
+        }
+    }
+
+    /**
+     * 占用一毫秒，确保之后的任务都超出预算
+     */
+    private static void spin()
+    {
+        var start = System.nanoTime();
+        while (System.nanoTime() - start < 1_000_000) Thread.onSpinWait();
+    }
+
+    @Test
+    public void overBudgetDeferrableTasksRunNextTickInOrder()
+    {
+        var scheduler = new BudgetScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+        var order = new ArrayList<String>();
+
+        scheduler.schedule(() ->
+        {
+            order.add("first");
+            spin();
+        }, 1);
+
+        for (int i = 1; i <= 3; i++)
+        {
+            var name = "deferrable" + i;
+            scheduler.schedule(() -> order.add(name), 1).setDeferrable(true);
+        }
+
+        scheduler.schedule(() -> order.add("required"), 1);
+        scheduler.schedule(() -> order.add("deferrable4"), 2).setDeferrable(true);
+
+        scheduler.budget = 1;
+        driver.advance(1);
+
+        //不可推迟的任务即使超出预算也会执行
+        assertEquals(List.of("first", "required"), order);
+
+        scheduler.budget = 0;
+        driver.advance(1);
+
+        assertEquals(List.of("first", "required", "deferrable1", "deferrable2", "deferrable3", "deferrable4"), order);
+        assertTrue(scheduler.isIdle());
+    }
+
+    //endregion 时间预算
+
+    //region 取消
+
+    @Test
+    public void cancelFromAnotherThreadRemovesTask() throws Exception
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        //让驱动器所在的线程成为tick线程
+        driver.advance(1);
+
+        var count = 10_000;
+        var runs = new AtomicIntegerArray(count);
+        var infos = new ScheduleInfo[count];
+
+        var thread = new Thread(() ->
+        {
+            for (int i = 0; i < count; i++)
+            {
+                var index = i;
+                infos[i] = scheduler.schedule(() -> runs.incrementAndGet(index), 1 + i % 300);
+
+                if (i % 2 == 0) infos[i].cancel();
+            }
+        });
+
+        thread.start();
+        thread.join();
+
+        driver.advance(400);
+
+        for (int i = 0; i < count; i++)
+            assertEquals(i % 2 == 0 ? 0 : 1, runs.get(i), "第" + i + "个任务的执行次数不正确");
+
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void concurrentCancelRunsEachTaskAtMostOnce() throws Exception
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+
+        driver.advance(1);
+
+        var count = 20_000;
+        var runs = new AtomicIntegerArray(count);
+        var infos = new ScheduleInfo[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            var index = i;
+            infos[i] = scheduler.schedule(() -> runs.incrementAndGet(index), 1 + i % 50);
+        }
+
+        //在tick进行的同时从其他线程取消
+        var thread = new Thread(() ->
+        {
+            for (int i = count - 1; i >= 0; i -= 2)
+                infos[i].cancel();
+        });
+
+        thread.start();
+
+        while (thread.isAlive())
+            driver.advance(1);
+
+        thread.join();
+        driver.advance(60);
+
+        for (int i = 0; i < count; i++)
+        {
+            assertTrue(runs.get(i) <= 1, "第" + i + "个任务被执行了多次");
+
+            if (i % 2 == 0)
+                assertEquals(1, runs.get(i), "第" + i + "个任务没有被执行");
+        }
+
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void cancelOnTickThreadRemovesTaskImmediately()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var ran = new int[1];
+
+        var info = scheduler.schedule(() -> ran[0]++, 100_000);
+        scheduler.schedule(info::cancel, 1);
+
+        driver.advance(1);
+
+        assertTrue(scheduler.isIdle());
+
+        driver.advance(100_000);
+        assertEquals(0, ran[0]);
+    }
+
+    //endregion 取消
+
+    //region 任务组
+
+    @Test
+    public void cancelAllStopsGroupTasks()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var group = new TaskGroup("test", null);
+        var runs = new int[1];
+
+        for (int i = 0; i < 100; i++)
+            scheduler.schedule(() -> runs[0]++, 1 + i, false, group);
+
+        scheduler.scheduleRepeating(() -> runs[0]++, 1, 1, false, group);
+
+        driver.advance(1);
+        assertEquals(2, runs[0]);
+
+        group.cancelAll();
+        assertEquals(0, group.size());
+
+        driver.advance(200);
+
+        assertEquals(2, runs[0]);
+        assertTrue(scheduler.isIdle());
+
+        //之后加入的任务不受影响
+        scheduler.schedule(() -> runs[0]++, 1, false, group);
+        driver.advance(1);
+
+        assertEquals(3, runs[0]);
+    }
+
+    @Test
+    public void droppedAndSkippedTasksReleaseTheirGroup()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var group = new TaskGroup("test", null);
+
+        for (int i = 0; i < 500; i++)
+            scheduler.schedule(() -> { }, 1 + i, false, group);
+
+        assertEquals(500, group.size());
+
+        scheduler.dropAllSchedules();
+        driver.advance(1);
+
+        assertEquals(0, group.size());
+
+        for (int i = 0; i < 100; i++)
+            scheduler.schedule(() -> { }, 1, false, group);
+
+        scheduler.setCancelSchedules(true);
+        scheduler.clearAllSchedules();
+
+        assertEquals(0, group.size());
+    }
+
+    //endregion 任务组
+
+    //region 补偿策略
+
+    /**
+     * 在第1刻执行一次后暂停20刻，返回恢复后前两刻每刻的执行次数
+     */
+    private static int[] runAfterPause(CatchUpPolicy policy)
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var runs = new int[1];
+
+        scheduler.scheduleRepeating(() -> runs[0]++, 1, 1).setCatchUpPolicy(policy);
+
+        driver.advance(1);
+        assertEquals(1, runs[0]);
+
+        scheduler.setCancelSchedules(true);
+        driver.advance(20);
+        assertEquals(1, runs[0]);
+
+        scheduler.setCancelSchedules(false);
+
+        var perTick = new int[2];
+
+        for (int i = 0; i < perTick.length; i++)
+        {
+            var before = runs[0];
+            driver.advance(1);
+
+            perTick[i] = runs[0] - before;
+        }
+
+        return perTick;
+    }
+
+    @Test
+    public void runAllCatchesUpEveryMissedRun()
+    {
+        //第2到第22刻的执行都在恢复的那一刻补上
+        assertArrayEquals(new int[] { 21, 1 }, runAfterPause(CatchUpPolicy.RUN_ALL));
+    }
+
+    @Test
+    public void skipMissedRunsOnceAndKeepsCadence()
+    {
+        assertArrayEquals(new int[] { 1, 1 }, runAfterPause(CatchUpPolicy.SKIP_MISSED));
+    }
+
+    @Test
+    public void spreadLimitsCatchUpRunsPerTick()
+    {
+        var perTick = runAfterPause(CatchUpPolicy.SPREAD);
+
+        assertEquals(16, perTick[0]);
+        assertEquals(21 + 1, perTick[0] + perTick[1]);
+    }
+
+    @Test
+    public void wallClockModeAdvancesByElapsedTime() throws Exception
+    {
+        var scheduler = new TickScheduler(Runnable::run)
+        {
+            @Override
+            protected boolean isWallClockMode()
+            {
+                return true;
+            }
+
+            @Override
+            protected long getTickNanos()
+            {
+                return 1_000_000L;
+            }
+        };
+
+        scheduler.tick();
+        Thread.sleep(50);
+        scheduler.tick();
+
+        //每刻1毫秒，50毫秒后至少推进了数十刻
+        assertTrue(scheduler.getCurrentTick() >= 40, "实际时间模式没有按经过的时间推进: " + scheduler.getCurrentTick());
+    }
+
+    //endregion 补偿策略
+
+    //region 优先级
+
+    @Test
+    public void runsLanesByPriority()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var order = new ArrayList<String>();
+
+        scheduler.schedule(() -> order.add("low"), 1, TaskPriority.LOW);
+        scheduler.schedule(() -> order.add("normal"), 1);
+        scheduler.schedule(() -> order.add("high"), 1, TaskPriority.HIGH);
+        scheduler.schedule(() -> order.add("normal2"), 1, TaskPriority.NORMAL);
+
+        driver.advance(1);
+
+        assertEquals(List.of("high", "normal", "normal2", "low"), order);
+    }
+
+    @Test
+    public void deferredTasksRunFirstInTheirLaneInOrder()
+    {
+        var scheduler = new BudgetScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+        var order = new ArrayList<String>();
+
+        scheduler.schedule(() -> order.add("low1"), 1, TaskPriority.LOW);
+        scheduler.schedule(() -> order.add("low2"), 1, TaskPriority.LOW);
+        scheduler.schedule(() -> order.add("deferrable"), 1).setDeferrable(true);
+        scheduler.schedule(() -> order.add("normal"), 1);
+        scheduler.schedule(() ->
+        {
+            order.add("high");
+            spin();
+        }, 1, TaskPriority.HIGH);
+
+        scheduler.schedule(() -> order.add("low3"), 2, TaskPriority.LOW);
+        scheduler.schedule(() -> order.add("normal2"), 2);
+
+        scheduler.budget = 1;
+        driver.advance(1);
+
+        //高优先级的任务和普通任务不会因预算被推迟，低优先级的任务总是可以推迟
+        assertEquals(List.of("high", "normal"), order);
+
+        scheduler.budget = 0;
+        driver.advance(1);
+
+        assertEquals(List.of("high", "normal", "deferrable", "normal2", "low1", "low2", "low3"), order);
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void tickStartedRunsBeforeAllLanes()
+    {
+        var order = new ArrayList<String>();
+
+        var scheduler = new TickScheduler(Runnable::run)
+        {
+            @Override
+            protected void onTickStarted()
+            {
+                order.add("started");
+            }
+        };
+
+        var driver = new HeadlessTickDriver(scheduler);
+
+        scheduler.schedule(() -> order.add("high"), 1, TaskPriority.HIGH);
+        driver.advance(1);
+
+        assertEquals(List.of("started", "high"), order);
+
+        //暂停时不调用
+        scheduler.setCancelSchedules(true);
+        driver.advance(1);
+
+        assertEquals(2, order.size());
+    }
+
+    //endregion 优先级
+
+    //region 回收
+
+    @Test
+    public void postReusesExecutedSchedules()
+    {
+        var scheduler = new RecordingScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+        var runs = new AtomicInteger();
+
+        //每刻在tick线程中计划下一刻的任务
+        var chain = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (runs.incrementAndGet() < 1000)
+                    scheduler.post(this, 1);
+            }
+        };
+
+        scheduler.schedule(() -> scheduler.post(chain, 1), 1);
+
+        driver.advanceUntilIdle(2000);
+
+        assertEquals(1000, runs.get());
+
+        var distinct = Collections.newSetFromMap(new IdentityHashMap<ScheduleInfo, Boolean>());
+        distinct.addAll(scheduler.executed);
+
+        //除了第一个普通任务，其余的执行只需要很少的对象
+        assertTrue(distinct.size() <= 3, "post()没有复用执行完毕的任务: " + distinct.size());
+
+        //放回回收池的任务不再引用执行过的Runnable
+        for (var info : distinct)
+        {
+            if (info instanceof PostedSchedule)
+                assertNull(info.task);
+        }
+    }
+
+    @Test
+    public void exceptionSnapshotOfPostedTaskIsStable()
+    {
+        var scheduler = new RecordingScheduler();
+        var driver = new HeadlessTickDriver(scheduler);
+
+        Runnable failing = () -> { throw new IllegalStateException(); };
+        Runnable other = () -> { };
+
+        scheduler.schedule(() -> scheduler.post(failing, 1), 1);
+        driver.advance(2);
+
+        assertEquals(1, scheduler.failed.size());
+
+        var snapshot = scheduler.failed.get(0);
+
+        //之后复用的任务不会改变交给异常处理的对象
+        scheduler.schedule(() -> scheduler.post(other, 1), 1);
+        driver.advance(2);
+
+        assertFalse(snapshot instanceof PostedSchedule);
+        assertSame(failing, snapshot.Function);
+        assertEquals(1, snapshot.Delay);
+    }
+
+    @Test
+    public void postIsRejectedAfterSchedulesAreNoLongerAccepted()
+    {
+        var scheduler = new TickScheduler(Runnable::run);
+
+        scheduler.setAcceptSchedules(false);
+
+        assertFalse(scheduler.post(() -> { }, 1));
+        assertTrue(scheduler.isIdle());
+    }
+
+    //endregion 回收
+
+    //region 合并任务
+
+    @Test
+    public void keepDeadlineRunsLatestFunctionOnce()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var ran = new ArrayList<String>();
+
+        var first = scheduler.scheduleCoalesced("key", () -> ran.add("a"), 5);
+        driver.advance(3);
+
+        var second = scheduler.scheduleCoalesced("key", () -> ran.add("b"), 5);
+        assertSame(first, second);
+
+        driver.advance(2);
+        assertEquals(List.of("b"), ran);
+
+        driver.advance(10);
+        assertEquals(List.of("b"), ran);
+    }
+
+    @Test
+    public void resetDeadlineReplacesPendingTask()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var ranAt = new ArrayList<Long>();
+
+        var first = scheduler.scheduleCoalesced("key", () -> ranAt.add(-1L), 5);
+        driver.advance(3);
+
+        scheduler.scheduleCoalesced("key", () -> ranAt.add(scheduler.getCurrentTick()), 5, CoalescePolicy.RESET_DEADLINE);
+        driver.advance(10);
+
+        assertTrue(first.isCanceled());
+        assertEquals(List.of(8L), ranAt);
+    }
+
+    @Test
+    public void coalescingWorksAgainAfterClearAllSchedules()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var runs = new int[1];
+
+        var dropped = scheduler.scheduleCoalesced("key", () -> runs[0]++, 5);
+        driver.advance(1);
+
+        scheduler.clearAllSchedules();
+        assertTrue(dropped.isCanceled());
+
+        scheduler.scheduleCoalesced("key", () -> runs[0]++, 5);
+        driver.advance(10);
+
+        assertEquals(1, runs[0]);
+    }
+
+    @Test
+    public void coalescingWorksAgainAfterDropAllSchedules()
+    {
+        var driver = new HeadlessTickDriver();
+        var scheduler = driver.getScheduler();
+        var runs = new int[1];
+
+        var dropped = scheduler.scheduleCoalesced("key", () -> runs[0]++, 5);
+
+        scheduler.dropAllSchedules();
+        driver.advance(1);
+
+        assertTrue(dropped.isCanceled());
+
+        scheduler.scheduleCoalesced("key", () -> runs[0]++, 5);
+        scheduler.scheduleCoalesced("key", () -> runs[0]++, 5);
+        driver.advance(10);
+
+        assertEquals(1, runs[0]);
+        assertTrue(scheduler.isIdle());
+    }
+
+    //endregion 合并任务
+}
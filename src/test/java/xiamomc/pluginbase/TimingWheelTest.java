@@ -0,0 +1,105 @@
+package xiamomc.pluginbase;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest
+{
+    private static ScheduleInfo task(int delay, long tickScheduled)
+    {
+        return new ScheduleInfo(() -> { }, delay, tickScheduled, false);
+    }
+
+    @Test
+    public void firesEveryTaskAtItsDeadlineAcrossCascades()
+    {
+        var random = new Random(1);
+        var wheel = new TimingWheel(0);
+        var added = new ArrayList<ScheduleInfo>();
+        var removed = new HashSet<ScheduleInfo>();
+
+        //大部分任务落在第一层，其余的需要经过多层下放
+        for (int i = 0; i < 50_000; i++)
+        {
+            var delay = random.nextInt(4) == 0 ? random.nextInt(300_000) : random.nextInt(100);
+            var info = task(delay, 0);
+
+            wheel.add(info);
+            added.add(info);
+        }
+
+        for (int i = 0; i < 10_000; i++)
+        {
+            var info = added.get(random.nextInt(added.size()));
+            if (wheel.remove(info)) removed.add(info);
+        }
+
+        var fired = new int[1];
+
+        for (long tick = 1; tick <= 306_000; tick++)
+        {
+            var now = tick;
+
+            wheel.advance(info ->
+            {
+                assertEquals(now, info.deadline, "任务没有在计划的刻执行");
+                assertFalse(removed.contains(info), "已经移除的任务被执行");
+
+                fired[0]++;
+            });
+
+            //在推进过程中继续加入和移除任务
+            if (tick % 1000 == 0 && tick <= 300_000)
+            {
+                var info = task(random.nextInt(5000), tick);
+
+                wheel.add(info);
+                added.add(info);
+            }
+
+            if (tick % 7 == 0)
+            {
+                var info = added.get(random.nextInt(added.size()));
+                if (wheel.remove(info)) removed.add(info);
+            }
+        }
+
+        assertEquals(0, wheel.size());
+        assertEquals(added.size() - removed.size(), fired[0]);
+    }
+
+    @Test
+    public void addsOverdueTaskToNextTick()
+    {
+        var wheel = new TimingWheel(10);
+        var info = task(1, 0);
+
+        wheel.add(info);
+
+        var fired = new ArrayList<ScheduleInfo>();
+        wheel.advance(fired::add);
+
+        assertEquals(1, fired.size());
+        assertSame(info, fired.get(0));
+    }
+
+    @Test
+    public void clearPassesEveryRemainingTask()
+    {
+        var wheel = new TimingWheel(0);
+
+        for (int i = 0; i < 1000; i++)
+            wheel.add(task(i * 300, 0));
+
+        var cleared = new int[1];
+        wheel.clear(info -> cleared[0]++);
+
+        assertEquals(1000, cleared[0]);
+        assertEquals(0, wheel.size());
+    }
+}